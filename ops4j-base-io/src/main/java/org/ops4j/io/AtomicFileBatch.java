@@ -0,0 +1,377 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.ops4j.lang.NullArgumentException;
+import org.ops4j.monitors.stream.StreamMonitor;
+
+/**
+ * Writes files atomically: each file is written to a temporary file next to its target and renamed into place
+ * when the batch is committed, so readers never observe a half written file. The {@link SyncPolicy} decides
+ * whether the files and their directories are forced to the device; with
+ * {@link SyncPolicy#FILE_AND_DIRECTORY} each directory is synced once per commit, however many files were
+ * renamed in it.
+ * Example of usage;
+ * <pre><code>
+ *      AtomicFileBatch batch = new AtomicFileBatch( SyncPolicy.FILE_AND_DIRECTORY );
+ *      try
+ *      {
+ *          batch.copy( source1, target1, null );
+ *          batch.copy( source2, target2, null );
+ *          batch.commit();
+ *      }
+ *      finally
+ *      {
+ *          batch.close();
+ *      }
+ * </code></pre>
+ * <p>
+ * Files are written concurrently when several threads share a batch. Closing a batch that was not committed
+ * deletes the temporary files and leaves the targets untouched.
+ * </p>
+ */
+public class AtomicFileBatch
+    implements Closeable
+{
+
+    private final SyncPolicy m_syncPolicy;
+    /**
+     * Written files waiting to be renamed into place.
+     */
+    private final List<Pending> m_pending;
+
+    /**
+     * Creates a batch.
+     *
+     * @param syncPolicy how far the written files are forced to the device
+     *
+     * @throws NullArgumentException if syncPolicy is null
+     */
+    public AtomicFileBatch( final SyncPolicy syncPolicy )
+    {
+        NullArgumentException.validateNotNull( syncPolicy, "syncPolicy" );
+        m_syncPolicy = syncPolicy;
+        m_pending = new ArrayList<Pending>();
+    }
+
+    /**
+     * Returns the sync policy of this batch.
+     *
+     * @return the sync policy
+     */
+    public SyncPolicy getSyncPolicy()
+    {
+        return m_syncPolicy;
+    }
+
+    /**
+     * Opens a stream to write the new content of a file. The content becomes visible at the target when the
+     * batch is committed, provided the stream was closed by then.
+     *
+     * @param target the file to write
+     *
+     * @return the stream to write to, to be closed by the caller
+     *
+     * @throws IOException           if the temporary file cannot be created
+     * @throws NullArgumentException if target is null
+     */
+    public OutputStream create( final File target )
+        throws IOException
+    {
+        final Pending pending = open( target );
+        final FileOutputStream file = new FileOutputStream( pending.m_temp.toFile() );
+        return new FilterOutputStream( file )
+        {
+            private boolean m_closed;
+
+            @Override
+            public void write( final byte[] b, final int off, final int len )
+                throws IOException
+            {
+                file.write( b, off, len );
+            }
+
+            @Override
+            public void close()
+                throws IOException
+            {
+                if( !m_closed )
+                {
+                    m_closed = true;
+                    finish( pending, file );
+                }
+            }
+        };
+    }
+
+    /**
+     * Copies a file into the batch.
+     *
+     * @param source  the file to copy
+     * @param target  the file to write
+     * @param monitor the monitor to report progress to, may be null
+     *
+     * @throws IOException           if the file cannot be copied
+     * @throws NullArgumentException if source or target is null
+     */
+    public void copy( final File source, final File target, final StreamMonitor monitor )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( source, "source" );
+        InputStream in = new FileInputStream( source );
+        try
+        {
+            Pending pending = open( target );
+            FileOutputStream out = new FileOutputStream( pending.m_temp.toFile() );
+            try
+            {
+                StreamUtils.copyStream( monitor, source.toURI().toURL(), source.length(), in, out, false );
+            }
+            catch( IOException e )
+            {
+                out.close();
+                throw e;
+            }
+            finish( pending, out );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Renames all written files into place and, depending on the sync policy, syncs their directories. Files
+     * whose stream was not closed are left out and deleted when the batch is closed.
+     *
+     * @throws IOException if a file cannot be renamed or a directory cannot be synced. Files renamed before
+     *                     the failure stay in place.
+     */
+    public void commit()
+        throws IOException
+    {
+        List<Pending> committing = new ArrayList<Pending>();
+        synchronized( m_pending )
+        {
+            for( int i = 0; i < m_pending.size(); )
+            {
+                Pending pending = m_pending.get( i );
+                if( pending.m_complete )
+                {
+                    committing.add( pending );
+                    m_pending.remove( i );
+                }
+                else
+                {
+                    i++;
+                }
+            }
+        }
+        Set<Path> directories = new LinkedHashSet<Path>();
+        for( int i = 0; i < committing.size(); i++ )
+        {
+            Pending pending = committing.get( i );
+            try
+            {
+                move( pending.m_temp, pending.m_target );
+            }
+            catch( IOException e )
+            {
+                for( int j = i; j < committing.size(); j++ )
+                {
+                    Files.deleteIfExists( committing.get( j ).m_temp );
+                }
+                throw e;
+            }
+            directories.add( pending.m_target.getParent() );
+        }
+        if( m_syncPolicy == SyncPolicy.FILE_AND_DIRECTORY )
+        {
+            for( Path directory : directories )
+            {
+                syncDirectory( directory );
+            }
+        }
+    }
+
+    /**
+     * Deletes the temporary files of everything that was not committed.
+     *
+     * @throws IOException if a temporary file cannot be deleted
+     */
+    public void close()
+        throws IOException
+    {
+        List<Pending> abandoned;
+        synchronized( m_pending )
+        {
+            abandoned = new ArrayList<Pending>( m_pending );
+            m_pending.clear();
+        }
+        for( Pending pending : abandoned )
+        {
+            Files.deleteIfExists( pending.m_temp );
+        }
+    }
+
+    /**
+     * Forces the entries of a directory, such as renamed files, to the device. Platforms that cannot open
+     * directories for syncing, like Windows, make their renames durable on their own, so nothing is done there.
+     *
+     * @param directory the directory to sync
+     *
+     * @throws IOException if the directory cannot be synced
+     */
+    public static void syncDirectory( final Path directory )
+        throws IOException
+    {
+        FileChannel channel;
+        try
+        {
+            channel = FileChannel.open( directory, StandardOpenOption.READ );
+        }
+        catch( IOException e )
+        {
+            return;
+        }
+        try
+        {
+            channel.force( true );
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    /**
+     * Creates the temporary file for a target and registers it with the batch.
+     */
+    private Pending open( final File target )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( target, "target" );
+        Path destination = target.toPath().toAbsolutePath();
+        // unlike Files.createTempFile, this honours the umask instead of making the file owner-only
+        Path temp = File.createTempFile(
+            "." + destination.getFileName() + ".", ".tmp", destination.getParent().toFile()
+        ).toPath();
+        copyPermissions( destination, temp );
+        Pending pending = new Pending( temp, destination );
+        synchronized( m_pending )
+        {
+            m_pending.add( pending );
+        }
+        return pending;
+    }
+
+    /**
+     * Gives the temporary file the POSIX permissions of the file it is going to replace, if any.
+     */
+    private static void copyPermissions( final Path destination, final Path temp )
+        throws IOException
+    {
+        try
+        {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions( destination );
+            Files.setPosixFilePermissions( temp, permissions );
+        }
+        catch( NoSuchFileException e )
+        {
+            // nothing to replace
+        }
+        catch( UnsupportedOperationException e )
+        {
+            // not a POSIX file system
+        }
+    }
+
+    /**
+     * Syncs a temporary file according to the policy, closes it and marks it ready to be committed.
+     */
+    private void finish( final Pending pending, final FileOutputStream out )
+        throws IOException
+    {
+        try
+        {
+            if( m_syncPolicy != SyncPolicy.NONE )
+            {
+                out.getChannel().force( true );
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+        pending.m_complete = true;
+    }
+
+    /**
+     * Renames a file, atomically replacing the target where the file system supports it.
+     */
+    static void move( final Path source, final Path target )
+        throws IOException
+    {
+        try
+        {
+            Files.move( source, target, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( AtomicMoveNotSupportedException e )
+        {
+            Files.move( source, target, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    /**
+     * A temporary file and the target it replaces.
+     */
+    private static final class Pending
+    {
+
+        final Path m_temp;
+        final Path m_target;
+        volatile boolean m_complete;
+
+        Pending( final Path temp, final Path target )
+        {
+            m_temp = temp;
+            m_target = target;
+        }
+    }
+
+}
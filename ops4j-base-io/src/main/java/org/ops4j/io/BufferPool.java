@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A source of reusable I/O buffers. Buffers handed out may be larger than requested and must be given back
+ * with the matching release method once the caller is done with them. A buffer must not be used after it has
+ * been released.
+ *
+ * @see DefaultBufferPool
+ * @see StreamUtils#setBufferPool(BufferPool)
+ */
+public interface BufferPool
+{
+
+    /**
+     * Acquires a heap buffer.
+     *
+     * @param minimumSize the minimum size of the buffer in bytes
+     *
+     * @return a buffer of at least the requested size; its content is undefined.
+     */
+    byte[] acquire( int minimumSize );
+
+    /**
+     * Gives a heap buffer back to the pool.
+     *
+     * @param buffer the buffer to release, as returned by {@link #acquire(int)}
+     */
+    void release( byte[] buffer );
+
+    /**
+     * Acquires a direct buffer.
+     *
+     * @param minimumSize the minimum capacity of the buffer in bytes
+     *
+     * @return a cleared direct buffer with at least the requested capacity.
+     */
+    ByteBuffer acquireDirect( int minimumSize );
+
+    /**
+     * Gives a direct buffer back to the pool.
+     *
+     * @param buffer the buffer to release, as returned by {@link #acquireDirect(int)}
+     */
+    void releaseDirect( ByteBuffer buffer );
+
+}
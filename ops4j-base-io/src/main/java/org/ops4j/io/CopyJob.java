@@ -0,0 +1,96 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import org.ops4j.lang.NullArgumentException;
+
+/**
+ * A single copy operation executed by a {@link CopyService}: the content of a URL or file is copied to a
+ * destination file.
+ */
+public class CopyJob
+{
+
+    /**
+     * The source to copy from.
+     */
+    private final URL m_source;
+    /**
+     * The file to copy to.
+     */
+    private final File m_destination;
+
+    /**
+     * Creates a job copying a URL to a file.
+     *
+     * @param source      the source url
+     * @param destination the destination file
+     */
+    public CopyJob( final URL source, final File destination )
+    {
+        NullArgumentException.validateNotNull( source, "Source" );
+        NullArgumentException.validateNotNull( destination, "Destination" );
+
+        m_source = source;
+        m_destination = destination;
+    }
+
+    /**
+     * Creates a job copying a file to another file.
+     *
+     * @param source      the source file
+     * @param destination the destination file
+     *
+     * @throws MalformedURLException if the source file cannot be converted to a URL
+     */
+    public CopyJob( final File source, final File destination )
+        throws MalformedURLException
+    {
+        this( source.toURI().toURL(), destination );
+    }
+
+    /**
+     * Returns the source of the job.
+     *
+     * @return the source url
+     */
+    public URL getSource()
+    {
+        return m_source;
+    }
+
+    /**
+     * Returns the destination of the job.
+     *
+     * @return the destination file
+     */
+    public File getDestination()
+    {
+        return m_destination;
+    }
+
+    @Override
+    public String toString()
+    {
+        return m_source + " -> " + m_destination;
+    }
+
+}
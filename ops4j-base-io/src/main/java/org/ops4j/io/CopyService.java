@@ -0,0 +1,418 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ops4j.lang.NullArgumentException;
+import org.ops4j.monitors.stream.LongStreamMonitor;
+import org.ops4j.monitors.stream.StreamMonitor;
+import org.ops4j.monitors.stream.StreamProgress;
+
+/**
+ * Executes {@link CopyJob}s concurrently. Jobs run on an executor, by default one virtual thread per job on
+ * Java 21 and later or a fixed pool of daemon threads otherwise, and at most a configured number of jobs copy
+ * at the same time. Files are read directly, which lets {@link StreamUtils} move their bytes through the file
+ * channels, other URLs through their {@link URLConnection}. Jobs count the bytes they actually copied, so a
+ * file that changes while it is copied is still counted right.
+ * <p>
+ * All jobs of a service report to the monitor they were submitted with. Calls to a monitor are serialized, so
+ * the monitor does not need to be thread safe, and the service keeps running totals of the bytes copied and
+ * the jobs completed.
+ * </p>
+ * Example of usage;
+ * <pre><code>
+ *      CopyService service = new CopyService( 8 );
+ *      try
+ *      {
+ *          service.copyAll( jobs, new PrintStreamMonitor( System.out ) );
+ *      }
+ *      finally
+ *      {
+ *          service.shutdown();
+ *      }
+ * </code></pre>
+ */
+public class CopyService
+{
+
+    /**
+     * Default maximum number of jobs copying at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 8;
+
+    /**
+     * The executor running the jobs.
+     */
+    private final ExecutorService m_executor;
+    /**
+     * Limits the number of jobs copying at the same time.
+     */
+    private final Semaphore m_inFlight;
+    /**
+     * The maximum number of jobs copying at the same time.
+     */
+    private final int m_maxInFlight;
+    /**
+     * Total number of bytes copied by completed jobs.
+     */
+    private final AtomicLong m_bytesCopied = new AtomicLong();
+    /**
+     * Number of jobs completed successfully.
+     */
+    private final AtomicLong m_completedJobs = new AtomicLong();
+    /**
+     * Number of jobs that failed.
+     */
+    private final AtomicLong m_failedJobs = new AtomicLong();
+
+    /**
+     * Creates a service copying up to {@link #DEFAULT_MAX_IN_FLIGHT} jobs at the same time.
+     */
+    public CopyService()
+    {
+        this( DEFAULT_MAX_IN_FLIGHT );
+    }
+
+    /**
+     * Creates a service with its own executor.
+     *
+     * @param maxInFlight the maximum number of jobs copying at the same time
+     */
+    public CopyService( final int maxInFlight )
+    {
+        this( IOExecutors.newIOExecutor( "CopyService", maxInFlight ), maxInFlight );
+    }
+
+    /**
+     * Creates a service running its jobs on the given executor. {@link #shutdown()} shuts the executor down.
+     *
+     * @param executor    the executor to run the jobs on
+     * @param maxInFlight the maximum number of jobs copying at the same time
+     */
+    public CopyService( final ExecutorService executor, final int maxInFlight )
+    {
+        NullArgumentException.validateNotNull( executor, "Executor" );
+        if( maxInFlight < 1 )
+        {
+            throw new IllegalArgumentException( "maxInFlight < 1" );
+        }
+        m_executor = executor;
+        m_maxInFlight = maxInFlight;
+        m_inFlight = new Semaphore( maxInFlight );
+    }
+
+    /**
+     * Submits a job.
+     *
+     * @param job     the job to execute
+     * @param monitor the monitor to report to, may be null
+     *
+     * @return a future giving the number of bytes copied, or the IOException that made the job fail as cause
+     *         of the ExecutionException.
+     */
+    public Future<Long> submit( final CopyJob job, final StreamMonitor monitor )
+    {
+        NullArgumentException.validateNotNull( job, "Job" );
+        final StreamMonitor serialized = monitor == null ? null : new SerializingMonitor( monitor );
+        return m_executor.submit( new Callable<Long>()
+        {
+            public Long call()
+                throws IOException, InterruptedException
+            {
+                m_inFlight.acquire();
+                try
+                {
+                    long copied = copy( job, serialized );
+                    m_bytesCopied.addAndGet( copied );
+                    m_completedJobs.incrementAndGet();
+                    return copied;
+                }
+                catch( IOException e )
+                {
+                    m_failedJobs.incrementAndGet();
+                    throw e;
+                }
+                catch( RuntimeException e )
+                {
+                    m_failedJobs.incrementAndGet();
+                    throw e;
+                }
+                finally
+                {
+                    m_inFlight.release();
+                }
+            }
+        }
+        );
+    }
+
+    /**
+     * Submits a batch of jobs.
+     *
+     * @param jobs    the jobs to execute
+     * @param monitor the monitor all jobs report to, may be null
+     *
+     * @return the futures of the jobs, in the order of the jobs.
+     */
+    public List<Future<Long>> submitAll( final Collection<CopyJob> jobs, final StreamMonitor monitor )
+    {
+        NullArgumentException.validateNotNull( jobs, "Jobs" );
+        final StreamMonitor serialized = monitor == null ? null : new SerializingMonitor( monitor );
+        List<Future<Long>> futures = new ArrayList<Future<Long>>( jobs.size() );
+        for( CopyJob job : jobs )
+        {
+            futures.add( submit( job, serialized ) );
+        }
+        return futures;
+    }
+
+    /**
+     * Executes a batch of jobs and waits for all of them to finish.
+     *
+     * @param jobs    the jobs to execute
+     * @param monitor the monitor all jobs report to, may be null
+     *
+     * @return the total number of bytes copied.
+     *
+     * @throws IOException if any of the jobs failed; the first failure is thrown once all jobs have finished.
+     */
+    public long copyAll( final Collection<CopyJob> jobs, final StreamMonitor monitor )
+        throws IOException
+    {
+        long total = 0;
+        IOException failure = null;
+        for( Future<Long> future : submitAll( jobs, monitor ) )
+        {
+            try
+            {
+                total += future.get();
+            }
+            catch( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new HierarchicalIOException( "Interrupted while waiting for copy jobs", e );
+            }
+            catch( ExecutionException e )
+            {
+                if( failure == null )
+                {
+                    failure = e.getCause() instanceof IOException
+                              ? (IOException) e.getCause()
+                              : new HierarchicalIOException( e.getCause() );
+                }
+            }
+        }
+        if( failure != null )
+        {
+            throw failure;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the maximum number of jobs copying at the same time.
+     *
+     * @return the maximum number of concurrent copies
+     */
+    public int getMaxInFlight()
+    {
+        return m_maxInFlight;
+    }
+
+    /**
+     * Returns the number of jobs copying right now.
+     *
+     * @return the number of jobs in flight
+     */
+    public int getInFlight()
+    {
+        return m_maxInFlight - m_inFlight.availablePermits();
+    }
+
+    /**
+     * Returns the total number of bytes copied by the jobs completed so far.
+     *
+     * @return number of bytes copied
+     */
+    public long getBytesCopied()
+    {
+        return m_bytesCopied.get();
+    }
+
+    /**
+     * Returns the number of jobs completed successfully so far.
+     *
+     * @return number of completed jobs
+     */
+    public long getCompletedJobs()
+    {
+        return m_completedJobs.get();
+    }
+
+    /**
+     * Returns the number of jobs that failed so far.
+     *
+     * @return number of failed jobs
+     */
+    public long getFailedJobs()
+    {
+        return m_failedJobs.get();
+    }
+
+    /**
+     * Shuts down the executor. Jobs already submitted are still executed.
+     */
+    public void shutdown()
+    {
+        m_executor.shutdown();
+    }
+
+    /**
+     * Executes a job.
+     *
+     * @param job     the job
+     * @param monitor the monitor to report to, may be null
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException if the copy failed
+     */
+    private static long copy( final CopyJob job, final StreamMonitor monitor )
+        throws IOException
+    {
+        URL source = job.getSource();
+        File destination = job.getDestination();
+        File parent = destination.getParentFile();
+        if( parent != null )
+        {
+            parent.mkdirs();
+        }
+        StreamProgress progress = null;
+        try
+        {
+            InputStream in;
+            long expected;
+            if( "file".equals( source.getProtocol() ) )
+            {
+                File file;
+                try
+                {
+                    file = new File( source.toURI() );
+                }
+                catch( URISyntaxException e )
+                {
+                    file = new File( source.getPath() );
+                }
+                expected = file.length();
+                in = new FileInputStream( file );
+            }
+            else
+            {
+                URLConnection connection = source.openConnection();
+                expected = connection.getContentLengthLong();
+                in = connection.getInputStream();
+            }
+            if( monitor != null )
+            {
+                progress = new StreamProgress( monitor, source, expected );
+            }
+            FileOutputStream out;
+            try
+            {
+                out = new FileOutputStream( destination );
+            }
+            catch( IOException e )
+            {
+                in.close();
+                throw e;
+            }
+            return StreamUtils.copyStream( progress, in, out, true );
+        }
+        catch( IOException e )
+        {
+            if( monitor != null )
+            {
+                monitor.notifyError( source, e.getMessage() );
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Serializes the calls of concurrently running jobs to a monitor.
+     */
+    private static class SerializingMonitor
+        implements LongStreamMonitor
+    {
+
+        private final StreamMonitor m_delegate;
+
+        SerializingMonitor( final StreamMonitor delegate )
+        {
+            m_delegate = delegate instanceof SerializingMonitor
+                         ? ( (SerializingMonitor) delegate ).m_delegate
+                         : delegate;
+        }
+
+        public void notifyUpdate( final URL resource, final long expected, final long count )
+        {
+            synchronized( m_delegate )
+            {
+                StreamProgress.notifyUpdate( m_delegate, resource, expected, count );
+            }
+        }
+
+        public void notifyUpdate( final URL resource, final int expected, final int count )
+        {
+            notifyUpdate( resource, (long) expected, (long) count );
+        }
+
+        public void notifyCompletion( final URL resource )
+        {
+            synchronized( m_delegate )
+            {
+                m_delegate.notifyCompletion( resource );
+            }
+        }
+
+        public void notifyError( final URL resource, final String message )
+        {
+            synchronized( m_delegate )
+            {
+                m_delegate.notifyError( resource, message );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default {@link BufferPool}. Buffers are grouped in power of two size classes between {@link #MIN_SIZE} and
+ * {@link #MAX_SIZE}. Released buffers go to a shared pool that holds a bounded number of buffers per size class.
+ * When that is full, a platform thread keeps one more heap buffer of every size class for itself. Virtual threads
+ * never keep buffers, as they are usually gone before they could reuse them. Direct buffers are only pooled in
+ * the shared pool. Requests larger than {@link #MAX_SIZE} are not pooled.
+ */
+public class DefaultBufferPool
+    implements BufferPool
+{
+
+    /**
+     * Smallest size class (4 KB).
+     */
+    public static final int MIN_SIZE = 1 << 12;
+    /**
+     * Largest size class (1 MB).
+     */
+    public static final int MAX_SIZE = 1 << 20;
+    /**
+     * Default number of buffers kept in the shared pool per size class.
+     */
+    public static final int DEFAULT_SHARED_LIMIT = 16;
+
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros( MIN_SIZE );
+    private static final int CLASS_COUNT = Integer.numberOfTrailingZeros( MAX_SIZE ) - MIN_SHIFT + 1;
+
+    /**
+     * Thread.isVirtual(), null before Java 21.
+     */
+    private static final Method IS_VIRTUAL = findIsVirtual();
+
+    /**
+     * Per size class limit of the shared pools.
+     */
+    private final int m_sharedLimit;
+    /**
+     * Buffers cached by the current thread, one per size class.
+     */
+    private final ThreadLocal<byte[][]> m_local = new ThreadLocal<byte[][]>()
+    {
+        @Override
+        protected byte[][] initialValue()
+        {
+            return new byte[CLASS_COUNT][];
+        }
+    };
+    /**
+     * Shared heap buffers per size class.
+     */
+    private final SharedPool<byte[]>[] m_shared;
+    /**
+     * Shared direct buffers per size class.
+     */
+    private final SharedPool<ByteBuffer>[] m_sharedDirect;
+
+    private final AtomicLong m_hits = new AtomicLong();
+    private final AtomicLong m_misses = new AtomicLong();
+
+    /**
+     * Creates a pool keeping up to {@link #DEFAULT_SHARED_LIMIT} shared buffers per size class.
+     */
+    public DefaultBufferPool()
+    {
+        this( DEFAULT_SHARED_LIMIT );
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param sharedLimit the number of buffers kept in the shared pool per size class, 0 to only use thread
+     *                    local caching on platform threads.
+     */
+    @SuppressWarnings( "unchecked" )
+    public DefaultBufferPool( final int sharedLimit )
+    {
+        if( sharedLimit < 0 )
+        {
+            throw new IllegalArgumentException( "sharedLimit < 0" );
+        }
+        m_sharedLimit = sharedLimit;
+        m_shared = (SharedPool<byte[]>[]) new SharedPool<?>[CLASS_COUNT];
+        m_sharedDirect = (SharedPool<ByteBuffer>[]) new SharedPool<?>[CLASS_COUNT];
+        for( int i = 0; i < CLASS_COUNT; i++ )
+        {
+            m_shared[ i ] = new SharedPool<byte[]>();
+            m_sharedDirect[ i ] = new SharedPool<ByteBuffer>();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public byte[] acquire( final int minimumSize )
+    {
+        int index = sizeClass( minimumSize );
+        if( index < 0 )
+        {
+            m_misses.incrementAndGet();
+            return new byte[minimumSize];
+        }
+        byte[][] local = m_local.get();
+        byte[] buffer = local[ index ];
+        if( buffer != null )
+        {
+            local[ index ] = null;
+        }
+        else
+        {
+            buffer = m_shared[ index ].poll();
+        }
+        if( buffer != null )
+        {
+            m_hits.incrementAndGet();
+            return buffer;
+        }
+        m_misses.incrementAndGet();
+        return new byte[MIN_SIZE << index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void release( final byte[] buffer )
+    {
+        if( buffer == null )
+        {
+            return;
+        }
+        int index = exactSizeClass( buffer.length );
+        if( index < 0 )
+        {
+            return;
+        }
+        if( !m_shared[ index ].offer( buffer, m_sharedLimit ) && !isVirtual( Thread.currentThread() ) )
+        {
+            byte[][] local = m_local.get();
+            if( local[ index ] == null )
+            {
+                local[ index ] = buffer;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ByteBuffer acquireDirect( final int minimumSize )
+    {
+        int index = sizeClass( minimumSize );
+        if( index < 0 )
+        {
+            m_misses.incrementAndGet();
+            return ByteBuffer.allocateDirect( minimumSize );
+        }
+        ByteBuffer buffer = m_sharedDirect[ index ].poll();
+        if( buffer != null )
+        {
+            m_hits.incrementAndGet();
+            buffer.clear();
+            return buffer;
+        }
+        m_misses.incrementAndGet();
+        return ByteBuffer.allocateDirect( MIN_SIZE << index );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void releaseDirect( final ByteBuffer buffer )
+    {
+        if( buffer == null || !buffer.isDirect() )
+        {
+            return;
+        }
+        int index = exactSizeClass( buffer.capacity() );
+        if( index >= 0 )
+        {
+            m_sharedDirect[ index ].offer( buffer, m_sharedLimit );
+        }
+    }
+
+    /**
+     * Returns the number of acquisitions that were served from the pool.
+     *
+     * @return the number of hits
+     */
+    public long getHits()
+    {
+        return m_hits.get();
+    }
+
+    /**
+     * Returns the number of acquisitions that had to allocate a new buffer.
+     *
+     * @return the number of misses
+     */
+    public long getMisses()
+    {
+        return m_misses.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DefaultBufferPool{hits=" + m_hits.get() + ", misses=" + m_misses.get() + "}";
+    }
+
+    /**
+     * Returns the size class a request has to be served from.
+     *
+     * @param size requested size
+     *
+     * @return index of the size class or -1 if the size is not pooled.
+     */
+    private static int sizeClass( final int size )
+    {
+        if( size > MAX_SIZE )
+        {
+            return -1;
+        }
+        if( size <= MIN_SIZE )
+        {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros( size - 1 ) - MIN_SHIFT;
+    }
+
+    /**
+     * Returns the size class a released buffer belongs to.
+     *
+     * @param size the size of the released buffer
+     *
+     * @return index of the size class or -1 if the buffer does not fit a size class.
+     */
+    private static int exactSizeClass( final int size )
+    {
+        if( size < MIN_SIZE || size > MAX_SIZE || Integer.bitCount( size ) != 1 )
+        {
+            return -1;
+        }
+        return Integer.numberOfTrailingZeros( size ) - MIN_SHIFT;
+    }
+
+    /**
+     * Checks whether a thread is a virtual thread.
+     *
+     * @param thread the thread to check
+     *
+     * @return true if the thread is virtual
+     */
+    private static boolean isVirtual( final Thread thread )
+    {
+        if( IS_VIRTUAL == null )
+        {
+            return false;
+        }
+        try
+        {
+            return (Boolean) IS_VIRTUAL.invoke( thread );
+        }
+        catch( Exception e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Looks up Thread.isVirtual() through reflection, as this code is compiled for older JDKs.
+     *
+     * @return the method, or null if the JDK has no virtual threads
+     */
+    private static Method findIsVirtual()
+    {
+        try
+        {
+            return Thread.class.getMethod( "isVirtual" );
+        }
+        catch( NoSuchMethodException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * A bounded lock free queue of buffers.
+     */
+    private static class SharedPool<T>
+    {
+
+        private final Queue<T> m_buffers = new ConcurrentLinkedQueue<T>();
+        private final AtomicInteger m_size = new AtomicInteger();
+
+        T poll()
+        {
+            T buffer = m_buffers.poll();
+            if( buffer != null )
+            {
+                m_size.decrementAndGet();
+            }
+            return buffer;
+        }
+
+        boolean offer( final T buffer, final int limit )
+        {
+            if( m_size.incrementAndGet() <= limit )
+            {
+                m_buffers.offer( buffer );
+                return true;
+            }
+            m_size.decrementAndGet();
+            return false;
+        }
+    }
+
+}
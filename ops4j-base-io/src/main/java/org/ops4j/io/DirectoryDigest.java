@@ -0,0 +1,602 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import org.ops4j.lang.NullArgumentException;
+
+/**
+ * A Merkle tree digest of a directory tree. Every file is hashed by content, every directory by the names,
+ * types and digests of its entries, so the digest of the root changes whenever anything in the tree changes,
+ * and two trees can be compared top down, skipping every subtree whose digest is equal.
+ * <p>
+ * Files are hashed in parallel on a shared fork-join pool. A digest can be stored to a small sidecar file and
+ * passed to {@link #compute(File, String, DirectoryDigest)} on a later run; files whose size and last modified
+ * time did not change are then not read again. Symbolic links are not followed; a link is hashed by its target
+ * path. Other special files, such as named pipes, sockets and device nodes, are never opened; they are hashed
+ * by their size only.
+ * </p>
+ * Example of usage;
+ * <pre><code>
+ *      DirectoryDigest previous = sidecar.exists() ? DirectoryDigest.load( sidecar ) : null;
+ *      DirectoryDigest current = DirectoryDigest.compute( dir, DirectoryDigest.DEFAULT_ALGORITHM, previous );
+ *      if( previous == null || !previous.equals( current ) )
+ *      {
+ *          List&lt;String&gt; changed = current.diff( previous );
+ *          current.store( sidecar );
+ *      }
+ * </code></pre>
+ */
+public final class DirectoryDigest
+{
+
+    /**
+     * The digest algorithm used by default.
+     */
+    public static final String DEFAULT_ALGORITHM = "SHA-256";
+
+    /**
+     * Identifies sidecar files, followed by the format version.
+     */
+    private static final int MAGIC = 0x4F504D54;
+    private static final int VERSION = 2;
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private static final byte FILE = 'F';
+    private static final byte DIRECTORY = 'D';
+    private static final byte LINK = 'L';
+    private static final byte OTHER = 'O';
+
+    /**
+     * Size of the buffer files are read through.
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final String m_algorithm;
+    private final Node m_root;
+
+    private DirectoryDigest( final String algorithm, final Node root )
+    {
+        m_algorithm = algorithm;
+        m_root = root;
+    }
+
+    /**
+     * Computes the digest of a directory tree with the {@link #DEFAULT_ALGORITHM}.
+     *
+     * @param directory the root of the tree
+     *
+     * @return the digest
+     *
+     * @throws IOException if the tree cannot be read
+     */
+    public static DirectoryDigest compute( final File directory )
+        throws IOException
+    {
+        return compute( directory, DEFAULT_ALGORITHM, null );
+    }
+
+    /**
+     * Computes the digest of a directory tree, reusing the digests of files that did not change since a previous
+     * computation.
+     *
+     * @param directory the root of the tree
+     * @param algorithm the name of the {@link MessageDigest} algorithm
+     * @param previous  a previous digest of the same tree, may be null. It is ignored if it was computed with
+     *                  another algorithm.
+     *
+     * @return the digest
+     *
+     * @throws IOException           if the tree cannot be read
+     * @throws NullArgumentException if directory or algorithm is null
+     */
+    public static DirectoryDigest compute( final File directory, final String algorithm,
+                                           final DirectoryDigest previous )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( directory, "Directory" );
+        NullArgumentException.validateNotNull( algorithm, "Algorithm" );
+        newDigest( algorithm );
+        if( !directory.isDirectory() )
+        {
+            throw new IOException( "[" + directory + "] is not a directory" );
+        }
+        Node cached = previous != null && previous.m_algorithm.equals( algorithm ) ? previous.m_root : null;
+        try
+        {
+            Node root = IOExecutors.forkJoinPool().invoke(
+                new DirectoryTask( algorithm, directory.toPath(), "", cached )
+            );
+            return new DirectoryDigest( algorithm, root );
+        }
+        catch( RuntimeException e )
+        {
+            for( Throwable cause = e.getCause(); cause != null; cause = cause.getCause() )
+            {
+                if( cause instanceof IOException )
+                {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a digest from a sidecar file written by {@link #store(File)}.
+     *
+     * @param file the sidecar file
+     *
+     * @return the digest
+     *
+     * @throws IOException if the file cannot be read or is not a sidecar file
+     */
+    public static DirectoryDigest load( final File file )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( file, "File" );
+        DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+        try
+        {
+            // version 1 lacks other files, but is otherwise the same
+            if( in.readInt() != MAGIC || in.readInt() > VERSION )
+            {
+                throw new IOException( "[" + file + "] is not a directory digest" );
+            }
+            String algorithm = in.readUTF();
+            return new DirectoryDigest( algorithm, readNode( in ) );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the digest to a sidecar file. The file is replaced atomically, so a concurrent reader sees either
+     * the old or the new digest.
+     *
+     * @param file the sidecar file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void store( final File file )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( file, "File" );
+        AtomicFileBatch batch = new AtomicFileBatch( SyncPolicy.NONE );
+        try
+        {
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( batch.create( file ) ) );
+            try
+            {
+                out.writeInt( MAGIC );
+                out.writeInt( VERSION );
+                out.writeUTF( m_algorithm );
+                writeNode( out, m_root );
+            }
+            finally
+            {
+                out.close();
+            }
+            batch.commit();
+        }
+        finally
+        {
+            batch.close();
+        }
+    }
+
+    /**
+     * Returns the name of the digest algorithm.
+     *
+     * @return the algorithm
+     */
+    public String getAlgorithm()
+    {
+        return m_algorithm;
+    }
+
+    /**
+     * Returns the digest of the root directory, which covers the whole tree.
+     *
+     * @return a copy of the digest
+     */
+    public byte[] getDigest()
+    {
+        return m_root.m_digest.clone();
+    }
+
+    /**
+     * Returns the digest of an entry of the tree.
+     *
+     * @param path the path of the entry relative to the root, separated by "/"; "" for the root
+     *
+     * @return a copy of the digest, or null if there is no such entry.
+     */
+    public byte[] getDigest( final String path )
+    {
+        NullArgumentException.validateNotNull( path, "Path" );
+        Node node = m_root;
+        if( path.length() > 0 )
+        {
+            for( String name : path.split( "/" ) )
+            {
+                node = node.m_children == null ? null : node.m_children.get( name );
+                if( node == null )
+                {
+                    return null;
+                }
+            }
+        }
+        return node.m_digest.clone();
+    }
+
+    /**
+     * Lists the paths that differ between two digests of a tree. Subtrees with equal digests are skipped
+     * without being looked at. A directory that exists in only one of the trees is listed by itself, not
+     * together with its content.
+     *
+     * @param other the digest to compare with, may be null to list the entries of this tree
+     *
+     * @return the changed, added and removed paths relative to the root, separated by "/", in name order.
+     *
+     * @throws IllegalArgumentException if the other digest was computed with another algorithm
+     */
+    public List<String> diff( final DirectoryDigest other )
+    {
+        if( other == null )
+        {
+            return new ArrayList<String>( m_root.m_children.keySet() );
+        }
+        if( !m_algorithm.equals( other.m_algorithm ) )
+        {
+            throw new IllegalArgumentException( "Cannot compare " + m_algorithm + " to " + other.m_algorithm );
+        }
+        List<String> changes = new ArrayList<String>();
+        diff( "", m_root, other.m_root, changes );
+        return changes;
+    }
+
+    /**
+     * Digests are equal if they were computed with the same algorithm and their root digests are equal.
+     */
+    @Override
+    public boolean equals( final Object o )
+    {
+        if( this == o )
+        {
+            return true;
+        }
+        if( !( o instanceof DirectoryDigest ) )
+        {
+            return false;
+        }
+        DirectoryDigest other = (DirectoryDigest) o;
+        return m_algorithm.equals( other.m_algorithm ) && Arrays.equals( m_root.m_digest, other.m_root.m_digest );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode( m_root.m_digest );
+    }
+
+    /**
+     * Returns the digest of the root in hexadecimal.
+     */
+    @Override
+    public String toString()
+    {
+        return StreamUtils.toHex( m_root.m_digest );
+    }
+
+    private static void diff( final String prefix, final Node node, final Node other, final List<String> changes )
+    {
+        // the union of the names, in order
+        Map<String, Boolean> names = new TreeMap<String, Boolean>();
+        for( String name : node.m_children.keySet() )
+        {
+            names.put( name, Boolean.TRUE );
+        }
+        for( String name : other.m_children.keySet() )
+        {
+            names.put( name, Boolean.TRUE );
+        }
+        for( String name : names.keySet() )
+        {
+            Node child = node.m_children.get( name );
+            Node otherChild = other.m_children.get( name );
+            if( child != null && otherChild != null && child.m_type == otherChild.m_type
+                && Arrays.equals( child.m_digest, otherChild.m_digest ) )
+            {
+                continue;
+            }
+            String path = prefix + name;
+            if( child != null && otherChild != null && child.m_type == DIRECTORY && otherChild.m_type == DIRECTORY )
+            {
+                diff( path + "/", child, otherChild, changes );
+            }
+            else
+            {
+                changes.add( path );
+            }
+        }
+    }
+
+    private static MessageDigest newDigest( final String algorithm )
+    {
+        try
+        {
+            return MessageDigest.getInstance( algorithm );
+        }
+        catch( NoSuchAlgorithmException e )
+        {
+            throw new IllegalArgumentException( "Unknown digest algorithm " + algorithm, e );
+        }
+    }
+
+    private static void writeNode( final DataOutputStream out, final Node node )
+        throws IOException
+    {
+        out.writeByte( node.m_type );
+        out.writeLong( node.m_size );
+        out.writeLong( node.m_lastModified );
+        out.writeByte( node.m_digest.length );
+        out.write( node.m_digest );
+        if( node.m_type == DIRECTORY )
+        {
+            out.writeInt( node.m_children.size() );
+            for( Map.Entry<String, Node> child : node.m_children.entrySet() )
+            {
+                out.writeUTF( child.getKey() );
+                writeNode( out, child.getValue() );
+            }
+        }
+    }
+
+    private static Node readNode( final DataInputStream in )
+        throws IOException
+    {
+        byte type = in.readByte();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        byte[] digest = new byte[in.readUnsignedByte()];
+        in.readFully( digest );
+        Map<String, Node> children = null;
+        if( type == DIRECTORY )
+        {
+            children = new TreeMap<String, Node>();
+            int count = in.readInt();
+            for( int i = 0; i < count; i++ )
+            {
+                String name = in.readUTF();
+                children.put( name, readNode( in ) );
+            }
+        }
+        else if( type != FILE && type != LINK && type != OTHER )
+        {
+            throw new IOException( "Corrupt directory digest" );
+        }
+        return new Node( type, size, lastModified, digest, children );
+    }
+
+    /**
+     * An entry of the tree. Directories have children sorted by name, files and links have none.
+     */
+    private static final class Node
+    {
+
+        final byte m_type;
+        final long m_size;
+        final long m_lastModified;
+        final byte[] m_digest;
+        final Map<String, Node> m_children;
+
+        Node( final byte type, final long size, final long lastModified, final byte[] digest,
+              final Map<String, Node> children )
+        {
+            m_type = type;
+            m_size = size;
+            m_lastModified = lastModified;
+            m_digest = digest;
+            m_children = children;
+        }
+    }
+
+    /**
+     * Hashes a directory: forks a task for every entry and combines their digests.
+     */
+    private static final class DirectoryTask extends RecursiveTask<Node>
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String m_algorithm;
+        private final Path m_path;
+        private final String m_name;
+        private final Node m_previous;
+
+        DirectoryTask( final String algorithm, final Path path, final String name, final Node previous )
+        {
+            m_algorithm = algorithm;
+            m_path = path;
+            m_name = name;
+            m_previous = previous;
+        }
+
+        @Override
+        protected Node compute()
+        {
+            try
+            {
+                List<String> names = new ArrayList<String>();
+                List<ForkJoinTask<Node>> tasks = new ArrayList<ForkJoinTask<Node>>();
+                DirectoryStream<Path> entries = Files.newDirectoryStream( m_path );
+                try
+                {
+                    for( Path entry : entries )
+                    {
+                        String name = entry.getFileName().toString();
+                        Node previous = m_previous != null && m_previous.m_children != null
+                                        ? m_previous.m_children.get( name )
+                                        : null;
+                        BasicFileAttributes attributes = Files.readAttributes( entry, BasicFileAttributes.class,
+                                                                               LinkOption.NOFOLLOW_LINKS
+                        );
+                        names.add( name );
+                        if( attributes.isDirectory() )
+                        {
+                            tasks.add( new DirectoryTask( m_algorithm, entry, name, previous ) );
+                        }
+                        else
+                        {
+                            tasks.add( new FileTask( m_algorithm, entry, attributes, previous ) );
+                        }
+                    }
+                }
+                finally
+                {
+                    entries.close();
+                }
+                invokeAll( tasks );
+                Map<String, Node> children = new TreeMap<String, Node>();
+                for( int i = 0; i < tasks.size(); i++ )
+                {
+                    children.put( names.get( i ), tasks.get( i ).join() );
+                }
+                MessageDigest digest = newDigest( m_algorithm );
+                for( Map.Entry<String, Node> child : children.entrySet() )
+                {
+                    digest.update( child.getValue().m_type );
+                    digest.update( child.getKey().getBytes( UTF_8 ) );
+                    digest.update( (byte) 0 );
+                    digest.update( child.getValue().m_digest );
+                }
+                return new Node( DIRECTORY, 0, 0, digest.digest(), Collections.unmodifiableMap( children ) );
+            }
+            catch( IOException e )
+            {
+                throw new RuntimeException( new HierarchicalIOException( "Cannot digest [" + m_path + "]", e ) );
+            }
+        }
+    }
+
+    /**
+     * Hashes a file, a symbolic link by its target, or another file by its size, unless it is unchanged since the previous computation.
+     */
+    private static final class FileTask extends RecursiveTask<Node>
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String m_algorithm;
+        private final Path m_path;
+        private final BasicFileAttributes m_attributes;
+        private final Node m_previous;
+
+        FileTask( final String algorithm, final Path path, final BasicFileAttributes attributes,
+                  final Node previous )
+        {
+            m_algorithm = algorithm;
+            m_path = path;
+            m_attributes = attributes;
+            m_previous = previous;
+        }
+
+        @Override
+        protected Node compute()
+        {
+            byte type = m_attributes.isSymbolicLink() ? LINK : m_attributes.isOther() ? OTHER : FILE;
+            long size = m_attributes.size();
+            long lastModified = m_attributes.lastModifiedTime().toMillis();
+            if( m_previous != null && m_previous.m_type == type && m_previous.m_size == size
+                && m_previous.m_lastModified == lastModified )
+            {
+                return m_previous;
+            }
+            try
+            {
+                MessageDigest digest = newDigest( m_algorithm );
+                if( type == LINK )
+                {
+                    digest.update( Files.readSymbolicLink( m_path ).toString().getBytes( UTF_8 ) );
+                }
+                else if( type == OTHER )
+                {
+                    // reading a named pipe may block forever, and a device may never end
+                    digest.update( Long.toString( size ).getBytes( UTF_8 ) );
+                }
+                else
+                {
+                    hash( digest );
+                }
+                return new Node( type, size, lastModified, digest.digest(), null );
+            }
+            catch( IOException e )
+            {
+                throw new RuntimeException( new HierarchicalIOException( "Cannot digest [" + m_path + "]", e ) );
+            }
+        }
+
+        private void hash( final MessageDigest digest )
+            throws IOException
+        {
+            InputStream in = Files.newInputStream( m_path );
+            byte[] buffer = StreamUtils.getBufferPool().acquire( READ_BUFFER_SIZE );
+            try
+            {
+                int length;
+                while( ( length = in.read( buffer ) ) != -1 )
+                {
+                    digest.update( buffer, 0, length );
+                }
+            }
+            finally
+            {
+                in.close();
+                StreamUtils.getBufferPool().release( buffer );
+            }
+        }
+    }
+
+}
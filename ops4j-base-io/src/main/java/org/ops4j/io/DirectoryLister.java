@@ -96,7 +96,7 @@ public class DirectoryLister
         // then we filter them based on configured filter
         for( String fileName : fileNames )
         {
-            if( matchesIncludes( fileName ) && !matchesExcludes( fileName ) )
+            if( ListerUtils.isIncluded( fileName, m_includes, m_excludes ) )
             {
                 File fileToAdd = new File( m_dir, fileName );
                 if( !fileToAdd.isHidden() && !fileName.startsWith( "." ) )
@@ -108,48 +108,6 @@ public class DirectoryLister
         return content;
     }
 
-    /**
-     * Checks if the file name matches inclusion patterns.
-     *
-     * @param fileName file name to be matched
-     *
-     * @return true if matches, false otherwise
-     */
-    private boolean matchesIncludes( final String fileName )
-    {
-        if( m_includes.length == 0 )
-        {
-            return true;
-        }
-        for( Pattern include : m_includes )
-        {
-            if( include.matcher( fileName ).matches() )
-            {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Checks if the file name matches exclusion patterns.
-     *
-     * @param fileName file name to be matched
-     *
-     * @return true if matches, false otherwise
-     */
-    private boolean matchesExcludes( final String fileName )
-    {
-        for( Pattern include : m_excludes )
-        {
-            if( include.matcher( fileName ).matches() )
-            {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * Lists recursively files form a directory
      *
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import org.ops4j.lang.NullArgumentException;
+import org.ops4j.monitors.stream.StreamMonitor;
+
+/**
+ * Synchronizes a target directory with a source directory, copying only files that are new or changed. A file
+ * is considered changed when its size or last modified time differs from the source; copied files get the last
+ * modified time of their source, so that unchanged files are recognized on the next run without reading them.
+ * Optionally files of equal size are compared by content instead of by time.
+ * <p>
+ * Files are selected with the include and exclude filters of {@link DirectoryLister}, applied to paths
+ * relative to the directories and separated by "/", see {@link ListerUtils#parseFilter(String)}. Changed files
+ * are copied concurrently by a {@link CopyService}, which reports to the monitor passed to
+ * {@link #sync(StreamMonitor)}. Files in the target that do not exist in the source are deleted only if asked
+ * for; files excluded by the filters are never touched. Links in the target are replaced, never written
+ * through.
+ * </p>
+ * Example of usage;
+ * <pre><code>
+ *      DirectorySync sync = new DirectorySync( source, target );
+ *      sync.setExcludes( new Pattern[]{ ListerUtils.parseFilter( "**&#47;*.tmp" ) } );
+ *      sync.setDeleteOrphans( true );
+ *      DirectorySync.Summary summary = sync.sync( new PrintStreamMonitor( System.out ) );
+ * </code></pre>
+ */
+public class DirectorySync
+{
+
+    private final File m_source;
+    private final File m_target;
+    private Pattern[] m_includes = new Pattern[0];
+    private Pattern[] m_excludes = new Pattern[0];
+    private boolean m_deleteOrphans;
+    private boolean m_compareContent;
+    private int m_parallelism = CopyService.DEFAULT_MAX_IN_FLIGHT;
+
+    /**
+     * Creates a synchronization of two directories.
+     *
+     * @param source the directory to copy from
+     * @param target the directory to copy to; created if it does not exist
+     *
+     * @throws NullArgumentException if source or target is null
+     */
+    public DirectorySync( final File source, final File target )
+    {
+        NullArgumentException.validateNotNull( source, "Source" );
+        NullArgumentException.validateNotNull( target, "Target" );
+
+        m_source = source;
+        m_target = target;
+    }
+
+    /**
+     * Sets the filters selecting the files to synchronize. An empty array selects all files.
+     *
+     * @param includes filters to include files
+     */
+    public void setIncludes( final Pattern[] includes )
+    {
+        NullArgumentException.validateNotNull( includes, "Include filters" );
+        m_includes = includes;
+    }
+
+    /**
+     * Sets the filters excluding files from the synchronization.
+     *
+     * @param excludes filters to exclude files
+     */
+    public void setExcludes( final Pattern[] excludes )
+    {
+        NullArgumentException.validateNotNull( excludes, "Exclude filters" );
+        m_excludes = excludes;
+    }
+
+    /**
+     * Returns whether files that exist only in the target are deleted.
+     *
+     * @return true if orphans are deleted
+     */
+    public boolean isDeleteOrphans()
+    {
+        return m_deleteOrphans;
+    }
+
+    /**
+     * Sets whether files that exist only in the target are deleted, together with directories that become empty.
+     *
+     * @param deleteOrphans true to delete orphans
+     */
+    public void setDeleteOrphans( final boolean deleteOrphans )
+    {
+        m_deleteOrphans = deleteOrphans;
+    }
+
+    /**
+     * Returns whether files of equal size are compared by content.
+     *
+     * @return true if content is compared
+     */
+    public boolean isCompareContent()
+    {
+        return m_compareContent;
+    }
+
+    /**
+     * Sets whether files of equal size are compared by content rather than by last modified time. This reads
+     * both files, but avoids copying files that were touched without being changed.
+     *
+     * @param compareContent true to compare content
+     */
+    public void setCompareContent( final boolean compareContent )
+    {
+        m_compareContent = compareContent;
+    }
+
+    /**
+     * Returns the maximum number of files copied at the same time.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism()
+    {
+        return m_parallelism;
+    }
+
+    /**
+     * Sets the maximum number of files copied at the same time.
+     *
+     * @param parallelism the parallelism
+     */
+    public void setParallelism( final int parallelism )
+    {
+        if( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "parallelism < 1" );
+        }
+        m_parallelism = parallelism;
+    }
+
+    /**
+     * Synchronizes the target with the source.
+     *
+     * @param monitor the monitor to report the progress of the copies to, may be null
+     *
+     * @return a summary of the changes made to the target.
+     *
+     * @throws IOException if a directory cannot be read or a file cannot be copied or deleted. All copies are
+     *                     attempted before the first failure is thrown.
+     */
+    public Summary sync( final StreamMonitor monitor )
+        throws IOException
+    {
+        Path source = m_source.toPath();
+        Path target = m_target.toPath();
+        if( !Files.isDirectory( source ) )
+        {
+            throw new IOException( "Source [" + m_source + "] is not a directory" );
+        }
+        Files.createDirectories( target );
+        Map<String, BasicFileAttributes> sourceFiles = list( source, true );
+        Map<String, BasicFileAttributes> targetFiles = list( target, false );
+
+        List<String> added = new ArrayList<String>();
+        List<String> updated = new ArrayList<String>();
+        long unchanged = 0;
+        for( Map.Entry<String, BasicFileAttributes> entry : sourceFiles.entrySet() )
+        {
+            String name = entry.getKey();
+            BasicFileAttributes existing = targetFiles.get( name );
+            if( existing == null )
+            {
+                added.add( name );
+            }
+            else if( isChanged( name, entry.getValue(), existing ) )
+            {
+                updated.add( name );
+            }
+            else
+            {
+                unchanged++;
+            }
+        }
+
+        List<String> copies = new ArrayList<String>( added );
+        copies.addAll( updated );
+        List<String> deleted = new ArrayList<String>();
+        long bytes = copy( copies, sourceFiles, targetFiles, deleted, monitor );
+
+        if( m_deleteOrphans )
+        {
+            for( String name : targetFiles.keySet() )
+            {
+                if( !sourceFiles.containsKey( name ) )
+                {
+                    Files.delete( target.resolve( name ) );
+                    deleted.add( name );
+                }
+            }
+            deleteEmptyDirectories( source, target );
+        }
+        return new Summary( added, updated, deleted, unchanged, bytes );
+    }
+
+    /**
+     * Decides whether a file has to be copied again.
+     */
+    private boolean isChanged( final String name, final BasicFileAttributes source,
+                               final BasicFileAttributes target )
+        throws IOException
+    {
+        if( !target.isRegularFile() || source.size() != target.size() )
+        {
+            return true;
+        }
+        boolean sameTime = source.lastModifiedTime().toMillis() == target.lastModifiedTime().toMillis();
+        if( !m_compareContent )
+        {
+            return !sameTime;
+        }
+        Path targetFile = m_target.toPath().resolve( name );
+        if( !FileUtils.compareFiles( m_source.toPath().resolve( name ), targetFile ) )
+        {
+            return true;
+        }
+        if( !sameTime )
+        {
+            Files.setLastModifiedTime( targetFile, source.lastModifiedTime() );
+        }
+        return false;
+    }
+
+    /**
+     * Copies files concurrently and gives them the last modified time of their source. Links and files in the
+     * target that stand where a copy needs a directory are deleted first, so nothing is written through them.
+     *
+     * @param deleted receives the names of the deleted links and files, which are removed from targetFiles
+     *
+     * @return the number of bytes copied
+     */
+    private long copy( final List<String> names, final Map<String, BasicFileAttributes> sourceFiles,
+                       final Map<String, BasicFileAttributes> targetFiles, final List<String> deleted,
+                       final StreamMonitor monitor )
+        throws IOException
+    {
+        if( names.isEmpty() )
+        {
+            return 0;
+        }
+        Path target = m_target.toPath();
+        IOException failure = null;
+        Set<String> directories = new HashSet<String>();
+        List<String> copied = new ArrayList<String>( names.size() );
+        List<CopyJob> jobs = new ArrayList<CopyJob>( names.size() );
+        for( String name : names )
+        {
+            try
+            {
+                replaceParents( name, targetFiles, directories, deleted );
+            }
+            catch( IOException e )
+            {
+                if( failure == null )
+                {
+                    failure = e;
+                }
+                continue;
+            }
+            BasicFileAttributes existing = targetFiles.get( name );
+            if( existing != null && !existing.isRegularFile() )
+            {
+                // do not write through a link
+                Files.delete( target.resolve( name ) );
+            }
+            copied.add( name );
+            jobs.add( new CopyJob( m_source.toPath().resolve( name ).toFile(), target.resolve( name ).toFile() ) );
+        }
+        CopyService service = new CopyService( m_parallelism );
+        try
+        {
+            List<Future<Long>> futures = service.submitAll( jobs, monitor );
+            long bytes = 0;
+            for( int i = 0; i < futures.size(); i++ )
+            {
+                try
+                {
+                    bytes += futures.get( i ).get();
+                    Files.setLastModifiedTime( jobs.get( i ).getDestination().toPath(),
+                                               sourceFiles.get( copied.get( i ) ).lastModifiedTime()
+                    );
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new HierarchicalIOException( "Interrupted while synchronizing " + m_target, e );
+                }
+                catch( ExecutionException e )
+                {
+                    if( failure == null )
+                    {
+                        failure = e.getCause() instanceof IOException
+                                  ? (IOException) e.getCause()
+                                  : new HierarchicalIOException( e.getCause() );
+                    }
+                }
+            }
+            if( failure != null )
+            {
+                throw failure;
+            }
+            return bytes;
+        }
+        finally
+        {
+            service.shutdown();
+        }
+    }
+
+    /**
+     * Makes sure that every parent of a file in the target is a directory or does not exist yet. A link or file
+     * in the way is deleted if it is one of the listed target files, and refused otherwise, as files excluded by
+     * the filters are never touched.
+     *
+     * @param name        the name of the file to copy
+     * @param targetFiles the listed target files
+     * @param directories the parents found to be fine so far
+     * @param deleted     receives the names of the deleted links and files
+     *
+     * @throws IOException if a parent cannot be replaced
+     */
+    private void replaceParents( final String name, final Map<String, BasicFileAttributes> targetFiles,
+                                 final Set<String> directories, final List<String> deleted )
+        throws IOException
+    {
+        int slash = -1;
+        while( ( slash = name.indexOf( '/', slash + 1 ) ) > 0 )
+        {
+            String parent = name.substring( 0, slash );
+            if( directories.contains( parent ) )
+            {
+                continue;
+            }
+            Path path = m_target.toPath().resolve( parent );
+            if( Files.exists( path, LinkOption.NOFOLLOW_LINKS )
+                && !Files.isDirectory( path, LinkOption.NOFOLLOW_LINKS ) )
+            {
+                if( targetFiles.remove( parent ) == null )
+                {
+                    throw new IOException( "Cannot copy [" + name + "], [" + path + "] is not a directory" );
+                }
+                Files.delete( path );
+                deleted.add( parent );
+            }
+            directories.add( parent );
+        }
+    }
+
+    /**
+     * Deletes empty directories of the target that do not exist in the source, deepest first.
+     */
+    private static void deleteEmptyDirectories( final Path source, final Path target )
+        throws IOException
+    {
+        final List<Path> directories = new ArrayList<Path>();
+        Files.walkFileTree( target, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult postVisitDirectory( final Path dir, final IOException e )
+            {
+                if( !dir.equals( target ) )
+                {
+                    directories.add( dir );
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        }
+        );
+        for( Path directory : directories )
+        {
+            if( !Files.isDirectory( source.resolve( target.relativize( directory ) ) ) )
+            {
+                try
+                {
+                    Files.delete( directory );
+                }
+                catch( DirectoryNotEmptyException ignore )
+                {
+                    // holds excluded files
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the files of a directory tree that pass the filters.
+     *
+     * @param root        the directory to list
+     * @param followLinks true to follow symbolic links, false to list the links themselves
+     *
+     * @return the attributes of the files by relative name, in name order
+     */
+    private Map<String, BasicFileAttributes> list( final Path root, final boolean followLinks )
+        throws IOException
+    {
+        final Map<String, BasicFileAttributes> files = new TreeMap<String, BasicFileAttributes>();
+        EnumSet<FileVisitOption> options = followLinks
+                                           ? EnumSet.of( FileVisitOption.FOLLOW_LINKS )
+                                           : EnumSet.noneOf( FileVisitOption.class );
+        Files.walkFileTree( root, options, Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile( final Path file, final BasicFileAttributes attributes )
+            {
+                if( !attributes.isDirectory() && !attributes.isOther() )
+                {
+                    String name = root.relativize( file ).toString().replace( File.separatorChar, '/' );
+                    if( ListerUtils.isIncluded( name, m_includes, m_excludes ) )
+                    {
+                        files.put( name, attributes );
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        }
+        );
+        return files;
+    }
+
+    /**
+     * The changes made by a synchronization. Names are relative to the directories and separated by "/".
+     */
+    public static final class Summary
+    {
+
+        private final List<String> m_added;
+        private final List<String> m_updated;
+        private final List<String> m_deleted;
+        private final long m_unchanged;
+        private final long m_bytesCopied;
+
+        Summary( final List<String> added, final List<String> updated, final List<String> deleted,
+                 final long unchanged, final long bytesCopied )
+        {
+            m_added = Collections.unmodifiableList( added );
+            m_updated = Collections.unmodifiableList( updated );
+            m_deleted = Collections.unmodifiableList( deleted );
+            m_unchanged = unchanged;
+            m_bytesCopied = bytesCopied;
+        }
+
+        /**
+         * Returns the files copied because they did not exist in the target.
+         *
+         * @return names of the added files
+         */
+        public List<String> getAdded()
+        {
+            return m_added;
+        }
+
+        /**
+         * Returns the files copied because they changed.
+         *
+         * @return names of the updated files
+         */
+        public List<String> getUpdated()
+        {
+            return m_updated;
+        }
+
+        /**
+         * Returns the files deleted from the target because they do not exist in the source.
+         *
+         * @return names of the deleted files
+         */
+        public List<String> getDeleted()
+        {
+            return m_deleted;
+        }
+
+        /**
+         * Returns the number of files that were up to date.
+         *
+         * @return number of unchanged files
+         */
+        public long getUnchangedCount()
+        {
+            return m_unchanged;
+        }
+
+        /**
+         * Returns the number of bytes copied.
+         *
+         * @return number of bytes copied
+         */
+        public long getBytesCopied()
+        {
+            return m_bytesCopied;
+        }
+
+        @Override
+        public String toString()
+        {
+            return m_added.size() + " added, " + m_updated.size() + " updated, " + m_deleted.size() + " deleted, "
+                   + m_unchanged + " unchanged, " + m_bytesCopied + " bytes copied";
+        }
+    }
+
+}
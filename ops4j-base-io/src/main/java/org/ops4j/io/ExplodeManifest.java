@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+
+/**
+ * Records which entries of an archive {@link ZipExploder} extracted, so that unchanged entries can be skipped the
+ * next time. For every file the size, CRC-32 and time of the entry are kept, together with the size and
+ * modification time the extracted file had on disk. An entry is unchanged if it matches its record and the file
+ * on disk still matches, too.
+ */
+final class ExplodeManifest
+{
+
+    private static final int MAGIC = 0x4F505A4D;
+    private static final int VERSION = 1;
+
+    private final Map<String, Record> m_records = new HashMap<String, Record>();
+
+    /**
+     * Reads a manifest. A missing or unreadable manifest is treated as empty, which makes every entry count as
+     * changed.
+     *
+     * @param file the manifest file
+     *
+     * @return the manifest
+     */
+    static ExplodeManifest load( final File file )
+    {
+        ExplodeManifest manifest = new ExplodeManifest();
+        if( !file.isFile() )
+        {
+            return manifest;
+        }
+        try
+        {
+            DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+            try
+            {
+                if( in.readInt() != MAGIC || in.readInt() != VERSION )
+                {
+                    return manifest;
+                }
+                int count = in.readInt();
+                for( int i = 0; i < count; i++ )
+                {
+                    String name = in.readUTF();
+                    manifest.m_records.put(
+                        name, new Record( in.readLong(), in.readLong(), in.readLong(), in.readLong() )
+                    );
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch( IOException e )
+        {
+            // a damaged manifest only costs a full extraction
+            manifest.m_records.clear();
+        }
+        return manifest;
+    }
+
+    /**
+     * Checks whether an entry was extracted before and the extracted file was not touched since.
+     *
+     * @param entry  the entry of the archive
+     * @param target the file the entry is extracted to
+     *
+     * @return true if the entry does not have to be extracted
+     */
+    boolean isUnchanged( final ZipEntry entry, final File target )
+    {
+        Record record = m_records.get( entry.getName() );
+        return record != null
+               && entry.getCrc() != -1
+               && record.m_size == entry.getSize()
+               && record.m_crc == entry.getCrc()
+               && record.m_time == entry.getTime()
+               && target.length() == entry.getSize()
+               && target.lastModified() == record.m_fileTime;
+    }
+
+    /**
+     * Records an entry and the file it was extracted to.
+     *
+     * @param entry  the entry of the archive
+     * @param target the extracted file
+     */
+    void record( final ZipEntry entry, final File target )
+    {
+        m_records.put(
+            entry.getName(), new Record( entry.getSize(), entry.getCrc(), entry.getTime(), target.lastModified() )
+        );
+    }
+
+    /**
+     * Drops the records of entries that are no longer in the archive.
+     *
+     * @param names the names of all entries of the archive
+     *
+     * @return the names of the dropped records
+     */
+    Set<String> retain( final Set<String> names )
+    {
+        Set<String> dropped = new HashSet<String>();
+        for( Iterator<String> it = m_records.keySet().iterator(); it.hasNext(); )
+        {
+            String name = it.next();
+            if( !names.contains( name ) )
+            {
+                dropped.add( name );
+                it.remove();
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * Writes the manifest. The file is replaced atomically, so an interrupted write leaves the previous manifest.
+     *
+     * @param file the manifest file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    void store( final File file )
+        throws IOException
+    {
+        AtomicFileBatch batch = new AtomicFileBatch( SyncPolicy.NONE );
+        try
+        {
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( batch.create( file ) ) );
+            try
+            {
+                out.writeInt( MAGIC );
+                out.writeInt( VERSION );
+                out.writeInt( m_records.size() );
+                for( Map.Entry<String, Record> entry : m_records.entrySet() )
+                {
+                    Record record = entry.getValue();
+                    out.writeUTF( entry.getKey() );
+                    out.writeLong( record.m_size );
+                    out.writeLong( record.m_crc );
+                    out.writeLong( record.m_time );
+                    out.writeLong( record.m_fileTime );
+                }
+            }
+            finally
+            {
+                out.close();
+            }
+            batch.commit();
+        }
+        finally
+        {
+            batch.close();
+        }
+    }
+
+    private static final class Record
+    {
+
+        private final long m_size;
+        private final long m_crc;
+        private final long m_time;
+        private final long m_fileTime;
+
+        private Record( final long size, final long crc, final long time, final long fileTime )
+        {
+            m_size = size;
+            m_crc = crc;
+            m_time = time;
+            m_fileTime = fileTime;
+        }
+    }
+
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ops4j.lang.NullArgumentException;
+
+/**
+ * Deletes files and directory trees. Symbolic links are never followed; a link is deleted itself, the files it
+ * points to are left alone. Every entry is examined with a single attribute read and deleted with a single
+ * call, and the sizes of the deleted regular files are summed up along the way.
+ * <p>
+ * By default subtrees are deleted in parallel on a shared fork-join pool, which pays off for large trees such
+ * as exploded bundle caches. Entries that cannot be deleted are counted as failures and do not stop the
+ * deletion of the rest of the tree.
+ * </p>
+ */
+public class FileDeleter
+{
+
+    /**
+     * Number of files of one directory that are deleted by a single task.
+     */
+    private static final int FILE_BATCH_SIZE = 512;
+
+    private boolean m_parallel = true;
+
+    /**
+     * Creates a deleter that deletes subtrees in parallel.
+     */
+    public FileDeleter()
+    {
+    }
+
+    /**
+     * Returns whether subtrees are deleted in parallel.
+     *
+     * @return true if subtrees are deleted in parallel
+     */
+    public boolean isParallel()
+    {
+        return m_parallel;
+    }
+
+    /**
+     * Sets whether subtrees are deleted in parallel. When false, the tree is walked with
+     * {@link Files#walkFileTree(Path, java.nio.file.FileVisitor)} in the calling thread.
+     *
+     * @param parallel true to delete subtrees in parallel
+     */
+    public void setParallel( final boolean parallel )
+    {
+        m_parallel = parallel;
+    }
+
+    /**
+     * Deletes a file, a symbolic link or a directory with all its contents.
+     *
+     * @param path the file or directory to delete
+     *
+     * @return what was deleted. If the path does not exist, nothing is deleted and no failure is reported.
+     *
+     * @throws NullArgumentException if path is null
+     */
+    public Result delete( final Path path )
+    {
+        NullArgumentException.validateNotNull( path, "path" );
+        Counters counters = new Counters();
+        BasicFileAttributes attributes;
+        try
+        {
+            attributes = Files.readAttributes( path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS );
+        }
+        catch( IOException e )
+        {
+            if( !( e instanceof NoSuchFileException ) )
+            {
+                counters.m_failures.incrementAndGet();
+            }
+            return counters.toResult( false );
+        }
+        if( !attributes.isDirectory() )
+        {
+            return counters.toResult( deleteFile( path, attributes, counters ) );
+        }
+        if( m_parallel )
+        {
+            IOExecutors.forkJoinPool().invoke( new DirectoryTask( path, counters ) );
+        }
+        else
+        {
+            walk( path, counters );
+        }
+        return counters.toResult( !Files.exists( path, LinkOption.NOFOLLOW_LINKS ) );
+    }
+
+    /**
+     * Deletes a directory tree in the calling thread.
+     *
+     * @param directory the directory to delete
+     * @param counters  the counters to update
+     */
+    private static void walk( final Path directory, final Counters counters )
+    {
+        try
+        {
+            Files.walkFileTree( directory, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult visitFile( final Path file, final BasicFileAttributes attributes )
+                {
+                    deleteFile( file, attributes, counters );
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed( final Path file, final IOException e )
+                {
+                    counters.m_failures.incrementAndGet();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory( final Path dir, final IOException e )
+                {
+                    deleteDirectory( dir, counters );
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+            );
+        }
+        catch( IOException e )
+        {
+            counters.m_failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Deletes an entry that is not a directory.
+     *
+     * @param file       the entry to delete
+     * @param attributes the attributes of the entry, read without following links
+     * @param counters   the counters to update
+     *
+     * @return true if the entry was deleted
+     */
+    private static boolean deleteFile( final Path file, final BasicFileAttributes attributes,
+                                       final Counters counters )
+    {
+        try
+        {
+            Files.delete( file );
+            counters.m_files.incrementAndGet();
+            if( attributes.isRegularFile() )
+            {
+                counters.m_bytes.addAndGet( attributes.size() );
+            }
+            return true;
+        }
+        catch( IOException e )
+        {
+            counters.m_failures.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Deletes an empty directory.
+     *
+     * @param directory the directory to delete
+     * @param counters  the counters to update
+     */
+    private static void deleteDirectory( final Path directory, final Counters counters )
+    {
+        try
+        {
+            Files.delete( directory );
+            counters.m_directories.incrementAndGet();
+        }
+        catch( IOException e )
+        {
+            counters.m_failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * The outcome of a deletion.
+     */
+    public static final class Result
+    {
+
+        private final boolean m_deleted;
+        private final long m_files;
+        private final long m_directories;
+        private final long m_bytes;
+        private final long m_failures;
+
+        Result( final boolean deleted, final long files, final long directories, final long bytes,
+                final long failures )
+        {
+            m_deleted = deleted;
+            m_files = files;
+            m_directories = directories;
+            m_bytes = bytes;
+            m_failures = failures;
+        }
+
+        /**
+         * Returns whether the path passed to the deleter is gone.
+         *
+         * @return true if the path was deleted
+         */
+        public boolean isDeleted()
+        {
+            return m_deleted;
+        }
+
+        /**
+         * Returns the number of deleted files and symbolic links.
+         *
+         * @return number of deleted entries that are not directories
+         */
+        public long getFileCount()
+        {
+            return m_files;
+        }
+
+        /**
+         * Returns the number of deleted directories.
+         *
+         * @return number of deleted directories
+         */
+        public long getDirectoryCount()
+        {
+            return m_directories;
+        }
+
+        /**
+         * Returns the sum of the sizes of the deleted regular files.
+         *
+         * @return number of bytes freed
+         */
+        public long getBytesFreed()
+        {
+            return m_bytes;
+        }
+
+        /**
+         * Returns the number of entries that could not be read or deleted.
+         *
+         * @return number of failures
+         */
+        public long getFailureCount()
+        {
+            return m_failures;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Deleted " + m_files + " files and " + m_directories + " directories, freed " + m_bytes
+                   + " bytes, " + m_failures + " failures";
+        }
+    }
+
+    /**
+     * Counters shared by the tasks of one deletion.
+     */
+    private static final class Counters
+    {
+
+        final AtomicLong m_files = new AtomicLong();
+        final AtomicLong m_directories = new AtomicLong();
+        final AtomicLong m_bytes = new AtomicLong();
+        final AtomicLong m_failures = new AtomicLong();
+
+        Result toResult( final boolean deleted )
+        {
+            return new Result( deleted, m_files.get(), m_directories.get(), m_bytes.get(), m_failures.get() );
+        }
+    }
+
+    /**
+     * Deletes a directory tree, forking a task for every subdirectory and for every batch of files.
+     */
+    private static final class DirectoryTask extends RecursiveAction
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path m_directory;
+        private final Counters m_counters;
+
+        DirectoryTask( final Path directory, final Counters counters )
+        {
+            m_directory = directory;
+            m_counters = counters;
+        }
+
+        @Override
+        protected void compute()
+        {
+            List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+            List<Path> files = new ArrayList<Path>();
+            List<BasicFileAttributes> attributes = new ArrayList<BasicFileAttributes>();
+            try
+            {
+                DirectoryStream<Path> entries = Files.newDirectoryStream( m_directory );
+                try
+                {
+                    for( Path entry : entries )
+                    {
+                        BasicFileAttributes entryAttributes;
+                        try
+                        {
+                            entryAttributes = Files.readAttributes( entry, BasicFileAttributes.class,
+                                                                    LinkOption.NOFOLLOW_LINKS
+                            );
+                        }
+                        catch( IOException e )
+                        {
+                            m_counters.m_failures.incrementAndGet();
+                            continue;
+                        }
+                        if( entryAttributes.isDirectory() )
+                        {
+                            tasks.add( new DirectoryTask( entry, m_counters ) );
+                        }
+                        else
+                        {
+                            files.add( entry );
+                            attributes.add( entryAttributes );
+                            if( files.size() == FILE_BATCH_SIZE )
+                            {
+                                tasks.add( new FilesTask( files, attributes, m_counters ) );
+                                files = new ArrayList<Path>();
+                                attributes = new ArrayList<BasicFileAttributes>();
+                            }
+                        }
+                    }
+                }
+                finally
+                {
+                    entries.close();
+                }
+            }
+            catch( IOException e )
+            {
+                m_counters.m_failures.incrementAndGet();
+            }
+            if( !files.isEmpty() )
+            {
+                tasks.add( new FilesTask( files, attributes, m_counters ) );
+            }
+            invokeAll( tasks );
+            deleteDirectory( m_directory, m_counters );
+        }
+    }
+
+    /**
+     * Deletes a batch of entries that are not directories.
+     */
+    private static final class FilesTask extends RecursiveAction
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> m_files;
+        private final List<BasicFileAttributes> m_attributes;
+        private final Counters m_counters;
+
+        FilesTask( final List<Path> files, final List<BasicFileAttributes> attributes, final Counters counters )
+        {
+            m_files = files;
+            m_attributes = attributes;
+            m_counters = counters;
+        }
+
+        @Override
+        protected void compute()
+        {
+            for( int i = 0; i < m_files.size(); i++ )
+            {
+                deleteFile( m_files.get( i ), m_attributes.get( i ), m_counters );
+            }
+        }
+    }
+
+}
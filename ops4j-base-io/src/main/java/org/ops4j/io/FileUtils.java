@@ -22,9 +22,16 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.ops4j.lang.NullArgumentException;
 import org.ops4j.monitors.stream.StreamMonitor;
@@ -34,6 +41,21 @@ import org.ops4j.monitors.stream.StreamMonitor;
  */
 public final class FileUtils {
 
+    /**
+     * Files smaller than this are compared through streams, as mapping them costs more than reading them.
+     */
+    private static final long MAP_THRESHOLD = 256 * 1024;
+
+    /**
+     * Files of at least this size are compared in parallel.
+     */
+    private static final long PARALLEL_COMPARE_THRESHOLD = 64L * 1024 * 1024;
+
+    /**
+     * Size of the regions that are mapped and compared at once.
+     */
+    private static final long COMPARE_CHUNK_SIZE = 16L * 1024 * 1024;
+
     /**
      * Private Constructor to ensure no instances are created.
      */
@@ -42,7 +64,10 @@ public final class FileUtils {
     }
 
     /**
-     * Copies a file.
+     * Copies a file, writing straight into the destination. Readers may observe
+     * a partially written destination, and nothing is forced to the device;
+     * see {@link #copyFile(File, File, StreamMonitor, SyncPolicy)} for safe
+     * replacement.
      * 
      * @param src
      *            The source file.
@@ -58,7 +83,7 @@ public final class FileUtils {
     public static void copyFile(File src, File dest, StreamMonitor monitor) throws IOException, FileNotFoundException {
         FileInputStream fis = null;
         FileOutputStream fos = null;
-        int length = (int) src.length();
+        long length = src.length();
         try {
             fis = new FileInputStream(src);
             fos = new FileOutputStream(dest);
@@ -78,6 +103,149 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Copies a file atomically: the content is written to a temporary file next
+     * to the destination, which is then renamed into place. Readers see either
+     * the old or the complete new destination. To replace many files with a
+     * single directory sync, use an {@link AtomicFileBatch}.
+     * 
+     * @param src
+     *            The source file.
+     * @param dest
+     *            The destination file.
+     * @param monitor
+     *            The monitor to use for reporting.
+     * @param syncPolicy
+     *            How far the destination is forced to the device.
+     * @throws IOException
+     *             if any underlying I/O problem occurs.
+     * @throws FileNotFoundException
+     *             if the source file does not exist.
+     */
+    public static void copyFile(File src, File dest, StreamMonitor monitor, SyncPolicy syncPolicy)
+            throws IOException, FileNotFoundException {
+        AtomicFileBatch batch = new AtomicFileBatch(syncPolicy);
+        try {
+            batch.copy(src, dest, monitor);
+            batch.commit();
+        } catch (IOException e) {
+            reportError(monitor, e, src.toURI().toURL());
+            throw e;
+        } finally {
+            batch.close();
+        }
+    }
+
+    /**
+     * Makes the content of a file available at a destination with as little
+     * I/O as possible. A hard link is tried first, then, if allowed, a symbolic
+     * link, and finally the file is copied. Links turn the copy into a metadata
+     * operation, but the destination then shares its content with the source:
+     * use them only for files that are never modified in place, such as
+     * artifacts staged from a cache. The link or copy is created next to the
+     * destination and then renamed over it, so an existing destination is
+     * only replaced once the new one is complete, and is left as it was if
+     * that fails. A destination that already is the source, or a link to it,
+     * is left alone.
+     * 
+     * @param src
+     *            The source file.
+     * @param dest
+     *            The destination file.
+     * @param allowSymbolicLink
+     *            true if a symbolic link may be created when a hard link is
+     *            not possible, for example across file systems.
+     * @param monitor
+     *            The monitor to use for reporting. Links are reported as
+     *            completed right away.
+     * @return the strategy that was used.
+     * @throws IOException
+     *             if any underlying I/O problem occurs.
+     * @throws FileNotFoundException
+     *             if the source file does not exist.
+     */
+    public static MaterializeStrategy materialize(File src, File dest, boolean allowSymbolicLink, StreamMonitor monitor)
+            throws IOException, FileNotFoundException {
+        NullArgumentException.validateNotNull(src, "src");
+        NullArgumentException.validateNotNull(dest, "dest");
+        if (!src.isFile()) {
+            FileNotFoundException e = new FileNotFoundException(src.getAbsolutePath());
+            reportError(monitor, e, src.toURI().toURL());
+            throw e;
+        }
+        Path source = src.toPath().toAbsolutePath();
+        Path destination = dest.toPath();
+        if (Files.exists(destination) && Files.isSameFile(source, destination)) {
+            notifyCompletion(monitor, src);
+            return Files.isSymbolicLink(destination) ? MaterializeStrategy.SYMBOLIC_LINK
+                    : MaterializeStrategy.HARD_LINK;
+        }
+        if (link(destination, source, false)) {
+            notifyCompletion(monitor, src);
+            return MaterializeStrategy.HARD_LINK;
+        }
+        if (allowSymbolicLink && link(destination, source, true)) {
+            notifyCompletion(monitor, src);
+            return MaterializeStrategy.SYMBOLIC_LINK;
+        }
+        copyFile(src, dest, monitor, SyncPolicy.NONE);
+        return MaterializeStrategy.COPY;
+    }
+
+    /**
+     * Tries to create a link. The link is created under a temporary name next
+     * to its final place and then renamed over it.
+     * 
+     * @param link
+     *            The link to create.
+     * @param target
+     *            The existing file to link to.
+     * @param symbolic
+     *            true for a symbolic link, false for a hard link.
+     * @return true if the link was created, false if links of this kind are
+     *         not possible here.
+     * @throws IOException
+     *             if the link was created but could not be renamed into place.
+     */
+    private static boolean link(Path link, Path target, boolean symbolic) throws IOException {
+        Path temp = link.resolveSibling("." + link.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            if (symbolic) {
+                Files.createSymbolicLink(temp, target);
+            } else {
+                Files.createLink(temp, target);
+            }
+        } catch (IOException e) {
+            // e.g. across file systems, or not permitted
+            return false;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        } catch (SecurityException e) {
+            return false;
+        }
+        try {
+            AtomicFileBatch.move(temp, link);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * @param monitor
+     *            The monitor to report to, may be null.
+     * @param file
+     *            The file that was made available.
+     * @throws MalformedURLException
+     *             if the file cannot be represented as URL.
+     */
+    private static void notifyCompletion(StreamMonitor monitor, File file) throws MalformedURLException {
+        if (monitor != null) {
+            monitor.notifyCompletion(file.toURI().toURL());
+        }
+    }
+
     /**
      * @param monitor
      *            The monitor to report to.
@@ -116,29 +284,164 @@ public final class FileUtils {
 
     /**
      * Deletes the file or recursively deletes a directory depending on the file
-     * passed.
+     * passed. Symbolic links are deleted themselves and never followed. Large
+     * directory trees are deleted in parallel, see {@link FileDeleter}.
      * 
      * @param file
      *            file or directory to be deleted.
      * @return true if the file was deleted.
      */
     public static boolean delete(final File file) {
-        boolean delete = false;
-        if (file != null && file.exists()) {
-            // even if is a directory try to delete. maybe is empty or maybe is a *nix symbolic link
-            delete = file.delete();
-            if (!delete && file.isDirectory()) {
-                File[] childs = file.listFiles();
-                if (childs != null && childs.length > 0) {
-                    for (File child : childs) {
-                        delete(child);
+        if (file == null) {
+            return false;
+        }
+        return new FileDeleter().delete(file.toPath()).isDeleted();
+    }
+
+    /**
+     * Compares if two files are identical in their contents. Files of different size are reported as different
+     * without reading them. Larger files are compared as memory mapped regions, and very large files are split
+     * into chunks that are compared in parallel.
+     * 
+     * @param file1
+     *            The first file.
+     * @param file2
+     *            The second file.
+     * @return true if both files contain the same bytes.
+     * @throws IOException
+     *             if any underlying I/O problem occurs.
+     */
+    public static boolean compareFiles(Path file1, Path file2) throws IOException {
+        NullArgumentException.validateNotNull(file1, "file1");
+        NullArgumentException.validateNotNull(file2, "file2");
+        if (Files.isSameFile(file1, file2)) {
+            return true;
+        }
+        long size = Files.size(file1);
+        if (size != Files.size(file2)) {
+            return false;
+        }
+        if (size < MAP_THRESHOLD) {
+            InputStream in1 = Files.newInputStream(file1);
+            try {
+                InputStream in2 = Files.newInputStream(file2);
+                try {
+                    return StreamUtils.compareStreams(in1, in2);
+                } finally {
+                    in2.close();
+                }
+            } finally {
+                in1.close();
+            }
+        }
+        MappedFile mapped1 = new MappedFile(file1, MappedFile.DEFAULT_WINDOW_SIZE);
+        try {
+            MappedFile mapped2 = new MappedFile(file2, MappedFile.DEFAULT_WINDOW_SIZE);
+            try {
+                if (size < PARALLEL_COMPARE_THRESHOLD) {
+                    return compareRegions(mapped1, mapped2, 0, size, null);
+                }
+                return IOExecutors.forkJoinPool().invoke(new CompareTask(mapped1, mapped2, 0, size, new AtomicBoolean()));
+            } catch (RuntimeException e) {
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
                     }
-                    // then try again as by now the directory can be empty
-                    delete = file.delete();
+                }
+                throw e;
+            } finally {
+                mapped2.close();
+            }
+        } finally {
+            mapped1.close();
+        }
+    }
+
+    /**
+     * Compares a region of two files chunk by chunk.
+     * 
+     * @param file1
+     *            The first file.
+     * @param file2
+     *            The second file.
+     * @param position
+     *            Start of the region.
+     * @param length
+     *            Length of the region.
+     * @param mismatch
+     *            Flag shared by parallel comparisons, set as soon as a difference is found; may be null.
+     * @return true if the regions are identical.
+     * @throws IOException
+     *             if any underlying I/O problem occurs.
+     */
+    private static boolean compareRegions(MappedFile file1, MappedFile file2, long position, long length, AtomicBoolean mismatch)
+            throws IOException {
+        long end = position + length;
+        while (position < end) {
+            if (mismatch != null && mismatch.get()) {
+                return false;
+            }
+            long chunk = Math.min(end - position, COMPARE_CHUNK_SIZE);
+            MappedByteBuffer region1 = file1.map(position, chunk);
+            MappedByteBuffer region2 = null;
+            boolean identical;
+            try {
+                region2 = file2.map(position, chunk);
+                identical = region1.equals(region2);
+            } finally {
+                // release the mappings right away, they keep the files locked on Windows
+                MappedFile.unmap(region1);
+                if (region2 != null) {
+                    MappedFile.unmap(region2);
+                }
+            }
+            if (!identical) {
+                if (mismatch != null) {
+                    mismatch.set(true);
+                }
+                return false;
+            }
+            position += chunk;
+        }
+        return true;
+    }
+
+    /**
+     * Compares a region of two files, splitting it up for parallel comparison.
+     */
+    private static class CompareTask extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MappedFile m_file1;
+        private final MappedFile m_file2;
+        private final long m_position;
+        private final long m_length;
+        private final AtomicBoolean m_mismatch;
+
+        CompareTask(MappedFile file1, MappedFile file2, long position, long length, AtomicBoolean mismatch) {
+            m_file1 = file1;
+            m_file2 = file2;
+            m_position = position;
+            m_length = length;
+            m_mismatch = mismatch;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (m_length <= 2 * COMPARE_CHUNK_SIZE) {
+                try {
+                    return compareRegions(m_file1, m_file2, m_position, m_length, m_mismatch);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
                 }
             }
+            long half = (m_length / 2 / COMPARE_CHUNK_SIZE) * COMPARE_CHUNK_SIZE;
+            CompareTask second = new CompareTask(m_file1, m_file2, m_position + half, m_length - half, m_mismatch);
+            second.fork();
+            boolean identical = new CompareTask(m_file1, m_file2, m_position, half, m_mismatch).compute();
+            return second.join() && identical;
         }
-        return delete;
     }
 
     /**
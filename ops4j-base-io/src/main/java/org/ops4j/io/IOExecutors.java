@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executors used by the parallel operations of this package.
+ */
+final class IOExecutors
+{
+
+    /**
+     * Private Constructor to ensure no instances are created.
+     */
+    private IOExecutors()
+    {
+
+    }
+
+    /**
+     * Returns the fork-join pool shared by the parallel file operations. Its workers are daemon threads, so the
+     * pool never has to be shut down.
+     *
+     * @return the shared fork-join pool
+     */
+    static ForkJoinPool forkJoinPool()
+    {
+        return ForkJoinPoolHolder.POOL;
+    }
+
+    /**
+     * Creates an executor for blocking I/O tasks. On Java 21 and later every task runs on its own virtual
+     * thread. On older JDKs the tasks share a fixed pool of daemon threads.
+     *
+     * @param name     prefix for the names of the threads
+     * @param poolSize number of threads of the fixed pool used when virtual threads are not available
+     *
+     * @return a new executor, to be shut down by the caller
+     */
+    static ExecutorService newIOExecutor( final String name, final int poolSize )
+    {
+        ThreadFactory virtual = virtualThreadFactory( name );
+        if( virtual != null )
+        {
+            return Executors.newCachedThreadPool( virtual );
+        }
+        return Executors.newFixedThreadPool( poolSize, daemonThreadFactory( name ) );
+    }
+
+    /**
+     * Creates an executor for tasks that may block for an unlimited time, such as reads from a process stream.
+     * Such tasks must never wait in a queue for a busy thread, so on Java 21 and later every task runs on its
+     * own virtual thread, and on older JDKs on a cached pool of daemon threads that reuses the threads of
+     * finished tasks.
+     *
+     * @param name prefix for the names of the threads
+     *
+     * @return a new executor
+     */
+    static ExecutorService newBlockingExecutor( final String name )
+    {
+        ThreadFactory virtual = virtualThreadFactory( name );
+        return Executors.newCachedThreadPool( virtual != null ? virtual : daemonThreadFactory( name ) );
+    }
+
+    /**
+     * Creates a thread factory for daemon platform threads.
+     *
+     * @param name prefix for the names of the threads
+     *
+     * @return the thread factory
+     */
+    static ThreadFactory daemonThreadFactory( final String name )
+    {
+        return new ThreadFactory()
+        {
+            private final AtomicInteger m_count = new AtomicInteger();
+
+            public Thread newThread( final Runnable task )
+            {
+                Thread thread = new Thread( task, name + "-" + m_count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Creates a factory for virtual threads through reflection, as this code is compiled for older JDKs.
+     *
+     * @param name prefix for the names of the threads
+     *
+     * @return the thread factory, or null if virtual threads are not available.
+     */
+    static ThreadFactory virtualThreadFactory( final String name )
+    {
+        try
+        {
+            Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+            Class<?> builderType = Class.forName( "java.lang.Thread$Builder" );
+            builder = builderType.getMethod( "name", String.class, long.class ).invoke( builder, name + "-", 1L );
+            return (ThreadFactory) builderType.getMethod( "factory" ).invoke( builder );
+        }
+        catch( Exception e )
+        {
+            // not available, or a preview feature that is not enabled
+            return null;
+        }
+    }
+
+    /**
+     * Lazily creates the shared fork-join pool.
+     */
+    private static final class ForkJoinPoolHolder
+    {
+
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+}
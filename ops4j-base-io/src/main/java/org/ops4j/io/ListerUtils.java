@@ -82,4 +82,34 @@ public final class ListerUtils
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Checks if a file name passes include and exclude filters: it has to match one of the includes, or there
+     * are no includes, and none of the excludes.
+     *
+     * @param fileName file name to be matched, a path relative to the listed directory separated by "/"
+     * @param includes filters to include files
+     * @param excludes filters to exclude files
+     *
+     * @return true if the file is included, false otherwise
+     */
+    static boolean isIncluded( final String fileName, final Pattern[] includes, final Pattern[] excludes )
+    {
+        boolean included = includes.length == 0;
+        for( int i = 0; i < includes.length && !included; i++ )
+        {
+            included = includes[ i ].matcher( fileName ).matches();
+        }
+        if( included )
+        {
+            for( Pattern exclude : excludes )
+            {
+                if( exclude.matcher( fileName ).matches() )
+                {
+                    return false;
+                }
+            }
+        }
+        return included;
+    }
+
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.ops4j.lang.NullArgumentException;
+
+/**
+ * Read-only memory mapped access to a file. A single mapping is limited to 2 GB, so larger files are accessed
+ * through windows: consecutive regions of at most the window size that together cover the file.
+ * Example of usage;
+ * <pre><code>
+ *      MappedFile file = new MappedFile( path );
+ *      try
+ *      {
+ *          for( int i = 0; i &lt; file.getWindowCount(); i++ )
+ *          {
+ *              MappedByteBuffer window = file.window( i );
+ *              digest.update( window );
+ *              MappedFile.unmap( window );
+ *          }
+ *      }
+ *      finally
+ *      {
+ *          file.close();
+ *      }
+ * </code></pre>
+ * <p>
+ * Mapped buffers stay valid after the file is closed and are normally released by the garbage collector.
+ * {@link #unmap(ByteBuffer)} releases them right away where the JDK allows it, which keeps the address space
+ * and the file handles of large files under control.
+ * </p>
+ */
+public class MappedFile
+    implements Closeable
+{
+
+    /**
+     * Default window size (256 MB).
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+
+    /**
+     * Unmaps a direct buffer, null if the JDK does not allow it.
+     */
+    private static final Unmapper UNMAPPER = Unmapper.find();
+
+    private final FileChannel m_channel;
+    private final long m_size;
+    private final int m_windowSize;
+
+    /**
+     * Opens a file for mapping with the default window size.
+     *
+     * @param file the file to map
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFile( final File file )
+        throws IOException
+    {
+        this( file.toPath(), DEFAULT_WINDOW_SIZE );
+    }
+
+    /**
+     * Opens a file for mapping.
+     *
+     * @param path       the file to map
+     * @param windowSize the maximum size of a window in bytes
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFile( final Path path, final int windowSize )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( path, "Path" );
+        if( windowSize < 1 )
+        {
+            throw new IllegalArgumentException( "windowSize < 1" );
+        }
+        m_channel = FileChannel.open( path, StandardOpenOption.READ );
+        m_size = m_channel.size();
+        m_windowSize = windowSize;
+    }
+
+    /**
+     * Returns the size of the file at the time it was opened.
+     *
+     * @return the size in bytes
+     */
+    public long size()
+    {
+        return m_size;
+    }
+
+    /**
+     * Returns the maximum size of a window.
+     *
+     * @return the window size in bytes
+     */
+    public int getWindowSize()
+    {
+        return m_windowSize;
+    }
+
+    /**
+     * Returns the number of windows needed to cover the file.
+     *
+     * @return the number of windows
+     */
+    public int getWindowCount()
+    {
+        return (int) ( ( m_size + m_windowSize - 1 ) / m_windowSize );
+    }
+
+    /**
+     * Maps a window of the file. Window <code>i</code> starts at <code>i * getWindowSize()</code>; all windows
+     * but the last one are of the full window size.
+     *
+     * @param index the index of the window
+     *
+     * @return the mapped window
+     *
+     * @throws IOException if the window cannot be mapped
+     */
+    public MappedByteBuffer window( final int index )
+        throws IOException
+    {
+        if( index < 0 || index >= getWindowCount() )
+        {
+            throw new IndexOutOfBoundsException( "window " + index + " of " + getWindowCount() );
+        }
+        long position = (long) index * m_windowSize;
+        return map( position, Math.min( m_windowSize, m_size - position ) );
+    }
+
+    /**
+     * Maps a region of the file.
+     *
+     * @param position the start of the region
+     * @param length   the length of the region, at most 2 GB
+     *
+     * @return the mapped region
+     *
+     * @throws IOException if the region cannot be mapped
+     */
+    public MappedByteBuffer map( final long position, final long length )
+        throws IOException
+    {
+        return m_channel.map( FileChannel.MapMode.READ_ONLY, position, length );
+    }
+
+    /**
+     * Closes the file. Regions mapped before stay valid.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close()
+        throws IOException
+    {
+        m_channel.close();
+    }
+
+    /**
+     * Releases the memory mapping behind a buffer without waiting for the garbage collector. The buffer, and any
+     * buffer derived from it, must not be used afterwards: accessing it may crash the JVM.
+     *
+     * @param buffer a mapped buffer
+     *
+     * @return true if the buffer was unmapped, false if the JDK does not support explicit unmapping or the buffer
+     *         is not a mapped buffer.
+     */
+    public static boolean unmap( final ByteBuffer buffer )
+    {
+        if( UNMAPPER == null || !( buffer instanceof MappedByteBuffer ) )
+        {
+            return false;
+        }
+        try
+        {
+            return UNMAPPER.unmap( buffer );
+        }
+        catch( Exception e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Unmaps buffers through internal JDK APIs, accessed by reflection.
+     */
+    private abstract static class Unmapper
+    {
+
+        abstract boolean unmap( ByteBuffer buffer )
+            throws Exception;
+
+        /**
+         * Finds a way to unmap buffers on the running JDK.
+         *
+         * @return the unmapper, or null if none is available.
+         */
+        static Unmapper find()
+        {
+            try
+            {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+                final Method invokeCleaner = unsafeClass.getMethod( "invokeCleaner", ByteBuffer.class );
+                Field field = unsafeClass.getDeclaredField( "theUnsafe" );
+                field.setAccessible( true );
+                final Object unsafe = field.get( null );
+                return new Unmapper()
+                {
+                    @Override
+                    boolean unmap( final ByteBuffer buffer )
+                        throws Exception
+                    {
+                        invokeCleaner.invoke( unsafe, buffer );
+                        return true;
+                    }
+                };
+            }
+            catch( Exception e )
+            {
+                // fall through to the Java 7 and 8 way
+            }
+            try
+            {
+                final Method cleaner = Class.forName( "sun.nio.ch.DirectBuffer" ).getMethod( "cleaner" );
+                final Method clean = Class.forName( "sun.misc.Cleaner" ).getMethod( "clean" );
+                return new Unmapper()
+                {
+                    @Override
+                    boolean unmap( final ByteBuffer buffer )
+                        throws Exception
+                    {
+                        Object bufferCleaner = cleaner.invoke( buffer );
+                        if( bufferCleaner == null )
+                        {
+                            return false;
+                        }
+                        clean.invoke( bufferCleaner );
+                        return true;
+                    }
+                };
+            }
+            catch( Exception e )
+            {
+                return null;
+            }
+        }
+    }
+
+}
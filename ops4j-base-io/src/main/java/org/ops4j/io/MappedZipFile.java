@@ -0,0 +1,653 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Calendar;
+import java.util.Enumeration;
+import java.util.GregorianCalendar;
+import java.util.NoSuchElementException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import org.ops4j.lang.NullArgumentException;
+
+/**
+ * Read-only access to a zip archive through a memory mapping. The central directory is parsed once into a compact
+ * index: all entry names in one byte array and the positions of the central directory headers in a long array,
+ * plus a hash table for lookups by name. Entries are addressed by their index in the central directory.
+ * <p>
+ * The content of a STORED entry is handed out as a read-only slice of the mapping, without copying.
+ * DEFLATED entries are inflated on demand. Names are decoded as UTF-8. ZIP64 archives, archives over 2 GB and
+ * encrypted entries are not supported.
+ * </p>
+ * Example of usage;
+ * <pre><code>
+ *      MappedZipFile zip = new MappedZipFile( new File( "bundle.jar" ) );
+ *      try
+ *      {
+ *          int index = zip.indexOf( "META-INF/MANIFEST.MF" );
+ *          if( index != -1 )
+ *          {
+ *              manifest = new Manifest( zip.getInputStream( index ) );
+ *          }
+ *      }
+ *      finally
+ *      {
+ *          zip.close();
+ *      }
+ * </code></pre>
+ * <p>
+ * As with {@link MappedFile}, buffers handed out stay valid after the archive is closed; the mapping is
+ * released by the garbage collector once no buffer refers to it any more.
+ * </p>
+ */
+public class MappedZipFile
+    implements Closeable
+{
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int END_SIZE = 22;
+    private static final int MAX_COMMENT = 0xFFFF;
+
+    private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+
+    private final File m_file;
+    private final MappedFile m_mapped;
+    /**
+     * The whole archive, little endian. Only read with absolute gets, so it can be shared by threads.
+     */
+    private final ByteBuffer m_buffer;
+    /**
+     * Names of all entries, one after the other.
+     */
+    private final byte[] m_names;
+    /**
+     * Start of the name of entry i in m_names; entry count + 1 elements.
+     */
+    private final int[] m_nameStarts;
+    /**
+     * Position of the central directory header of entry i.
+     */
+    private final long[] m_headers;
+    /**
+     * Open addressing hash table of entry index + 1, zero for free slots.
+     */
+    private final int[] m_table;
+
+    /**
+     * Opens and indexes an archive.
+     *
+     * @param file the archive
+     *
+     * @throws IOException           if the file cannot be mapped
+     * @throws ZipException          if the file is not a supported zip archive
+     * @throws NullArgumentException if file is null
+     */
+    public MappedZipFile( final File file )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( file, "File" );
+        m_file = file;
+        m_mapped = new MappedFile( file );
+        try
+        {
+            if( m_mapped.size() > Integer.MAX_VALUE )
+            {
+                throw new ZipException( "Archives over 2 GB are not supported: " + file );
+            }
+            m_buffer = m_mapped.map( 0, m_mapped.size() ).order( ByteOrder.LITTLE_ENDIAN );
+            int end = findEndOfCentralDirectory();
+            int count = u16( end + 10 );
+            long size = u32( end + 12 );
+            long offset = u32( end + 16 );
+            if( count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL )
+            {
+                throw new ZipException( "ZIP64 archives are not supported: " + file );
+            }
+            if( offset + size > end )
+            {
+                throw new ZipException( "Invalid central directory: " + file );
+            }
+            m_headers = new long[count];
+            m_nameStarts = new int[count + 1];
+            m_names = new byte[(int) Math.min( size, Integer.MAX_VALUE )];
+            int pos = (int) offset;
+            int names = 0;
+            for( int i = 0; i < count; i++ )
+            {
+                if( pos + CENTRAL_HEADER_SIZE > end || m_buffer.getInt( pos ) != CENTRAL_HEADER )
+                {
+                    throw new ZipException( "Invalid central directory header: " + file );
+                }
+                int nameLength = u16( pos + 28 );
+                m_headers[ i ] = pos;
+                m_nameStarts[ i ] = names;
+                for( int j = 0; j < nameLength; j++ )
+                {
+                    m_names[ names++ ] = m_buffer.get( pos + CENTRAL_HEADER_SIZE + j );
+                }
+                pos += CENTRAL_HEADER_SIZE + nameLength + u16( pos + 30 ) + u16( pos + 32 );
+            }
+            m_nameStarts[ count ] = names;
+            m_table = new int[Integer.highestOneBit( Math.max( count, 1 ) ) * 4];
+            for( int i = 0; i < count; i++ )
+            {
+                int slot = hash( m_names, m_nameStarts[ i ], m_nameStarts[ i + 1 ] ) & ( m_table.length - 1 );
+                while( m_table[ slot ] != 0 )
+                {
+                    slot = ( slot + 1 ) & ( m_table.length - 1 );
+                }
+                m_table[ slot ] = i + 1;
+            }
+        }
+        catch( IOException e )
+        {
+            m_mapped.close();
+            throw e;
+        }
+        catch( RuntimeException e )
+        {
+            m_mapped.close();
+            throw new HierarchicalIOException( "Invalid zip archive: " + file, e );
+        }
+    }
+
+    /**
+     * Returns the archive file.
+     *
+     * @return the file
+     */
+    public File getFile()
+    {
+        return m_file;
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int size()
+    {
+        return m_headers.length;
+    }
+
+    /**
+     * Looks up an entry by name.
+     *
+     * @param name the name of the entry
+     *
+     * @return the index of the entry, or -1 if there is no such entry
+     */
+    public int indexOf( final String name )
+    {
+        NullArgumentException.validateNotNull( name, "Name" );
+        byte[] bytes = name.getBytes( UTF_8 );
+        int slot = hash( bytes, 0, bytes.length ) & ( m_table.length - 1 );
+        int entry;
+        while( ( entry = m_table[ slot ] ) != 0 )
+        {
+            if( nameEquals( entry - 1, bytes ) )
+            {
+                return entry - 1;
+            }
+            slot = ( slot + 1 ) & ( m_table.length - 1 );
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the name of an entry.
+     *
+     * @param index the index of the entry
+     *
+     * @return the name
+     */
+    public String getName( final int index )
+    {
+        int start = m_nameStarts[ index ];
+        return new String( m_names, start, m_nameStarts[ index + 1 ] - start, UTF_8 );
+    }
+
+    /**
+     * Checks whether an entry is a directory.
+     *
+     * @param index the index of the entry
+     *
+     * @return true if the name of the entry ends with a slash
+     */
+    public boolean isDirectory( final int index )
+    {
+        int end = m_nameStarts[ index + 1 ];
+        return end > m_nameStarts[ index ] && m_names[ end - 1 ] == '/';
+    }
+
+    /**
+     * Returns the compression method of an entry.
+     *
+     * @param index the index of the entry
+     *
+     * @return {@link ZipEntry#STORED}, {@link ZipEntry#DEFLATED} or another method
+     */
+    public int getMethod( final int index )
+    {
+        return u16( header( index ) + 10 );
+    }
+
+    /**
+     * Returns the uncompressed size of an entry.
+     *
+     * @param index the index of the entry
+     *
+     * @return the size in bytes
+     */
+    public long getSize( final int index )
+    {
+        return u32( header( index ) + 24 );
+    }
+
+    /**
+     * Returns the compressed size of an entry.
+     *
+     * @param index the index of the entry
+     *
+     * @return the size in bytes
+     */
+    public long getCompressedSize( final int index )
+    {
+        return u32( header( index ) + 20 );
+    }
+
+    /**
+     * Returns the CRC-32 of the uncompressed content of an entry.
+     *
+     * @param index the index of the entry
+     *
+     * @return the checksum
+     */
+    public long getCrc( final int index )
+    {
+        return u32( header( index ) + 16 );
+    }
+
+    /**
+     * Returns the modification time of an entry.
+     *
+     * @param index the index of the entry
+     *
+     * @return the time in milliseconds since the epoch, in the default time zone like {@link ZipEntry#getTime()}
+     */
+    public long getTime( final int index )
+    {
+        int time = u16( header( index ) + 12 );
+        int date = u16( header( index ) + 14 );
+        Calendar calendar = new GregorianCalendar(
+            ( ( date >> 9 ) & 0x7F ) + 1980, ( ( date >> 5 ) & 0x0F ) - 1, date & 0x1F,
+            ( time >> 11 ) & 0x1F, ( time >> 5 ) & 0x3F, ( time & 0x1F ) * 2
+        );
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Returns the content of an entry. The content of a STORED entry is a read-only slice of the mapping; a
+     * DEFLATED entry is inflated into a new buffer.
+     *
+     * @param index the index of the entry
+     *
+     * @return the content, positioned at its start
+     *
+     * @throws ZipException if the entry is encrypted, damaged or uses another compression method
+     * @throws IOException  if the entry cannot be inflated
+     */
+    public ByteBuffer getContent( final int index )
+        throws IOException
+    {
+        if( getMethod( index ) == ZipEntry.STORED )
+        {
+            return data( index );
+        }
+        long size = getSize( index );
+        if( size > Integer.MAX_VALUE )
+        {
+            throw new ZipException( "Entry too large to inflate into a buffer: " + getName( index ) );
+        }
+        byte[] content = new byte[(int) size];
+        InputStream in = getInputStream( index );
+        try
+        {
+            int read = 0;
+            int n;
+            while( read < content.length && ( n = in.read( content, read, content.length - read ) ) != -1 )
+            {
+                read += n;
+            }
+            if( read < content.length )
+            {
+                throw new EOFException( "Unexpected end of entry " + getName( index ) );
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return ByteBuffer.wrap( content );
+    }
+
+    /**
+     * Opens a stream on the content of an entry. DEFLATED entries are inflated as the stream is read.
+     *
+     * @param index the index of the entry
+     *
+     * @return the stream, to be closed by the caller
+     *
+     * @throws ZipException if the entry is encrypted, damaged or uses another compression method
+     */
+    public InputStream getInputStream( final int index )
+        throws ZipException
+    {
+        int method = getMethod( index );
+        InputStream raw = new BufferInputStream( data( index ) );
+        if( method == ZipEntry.STORED )
+        {
+            return raw;
+        }
+        if( method == ZipEntry.DEFLATED )
+        {
+            return new EntryInflaterInputStream( raw, getSize( index ) );
+        }
+        throw new ZipException( "Unsupported compression method " + method + ": " + getName( index ) );
+    }
+
+    /**
+     * Enumerates the entries as {@link ZipEntry}s, for example for a {@link ZipLister}. The entries are created
+     * as the enumeration advances.
+     *
+     * @return the entries, in central directory order
+     */
+    public Enumeration<ZipEntry> entries()
+    {
+        return new Enumeration<ZipEntry>()
+        {
+            private int m_next;
+
+            public boolean hasMoreElements()
+            {
+                return m_next < m_headers.length;
+            }
+
+            public ZipEntry nextElement()
+            {
+                if( m_next >= m_headers.length )
+                {
+                    throw new NoSuchElementException();
+                }
+                return getEntry( m_next++ );
+            }
+        };
+    }
+
+    /**
+     * Creates a {@link ZipEntry} describing an entry.
+     *
+     * @param index the index of the entry
+     *
+     * @return a new zip entry
+     */
+    public ZipEntry getEntry( final int index )
+    {
+        ZipEntry entry = new ZipEntry( getName( index ) );
+        entry.setSize( getSize( index ) );
+        entry.setCompressedSize( getCompressedSize( index ) );
+        entry.setCrc( getCrc( index ) );
+        entry.setTime( getTime( index ) );
+        int method = getMethod( index );
+        if( method == ZipEntry.STORED || method == ZipEntry.DEFLATED )
+        {
+            entry.setMethod( method );
+        }
+        return entry;
+    }
+
+    /**
+     * Closes the file. Buffers handed out stay valid.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close()
+        throws IOException
+    {
+        m_mapped.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MappedZipFile[" + m_file + ", " + m_headers.length + " entries]";
+    }
+
+    /**
+     * Returns the raw, possibly compressed, data of an entry as a read-only slice of the mapping.
+     */
+    private ByteBuffer data( final int index )
+        throws ZipException
+    {
+        int header = header( index );
+        if( ( u16( header + 8 ) & 1 ) != 0 )
+        {
+            throw new ZipException( "Encrypted entries are not supported: " + getName( index ) );
+        }
+        long local = u32( header + 42 );
+        long compressed = getCompressedSize( index );
+        if( local + LOCAL_HEADER_SIZE > m_buffer.limit() || m_buffer.getInt( (int) local ) != LOCAL_HEADER )
+        {
+            throw new ZipException( "Invalid local header: " + getName( index ) );
+        }
+        long start = local + LOCAL_HEADER_SIZE + u16( (int) local + 26 ) + u16( (int) local + 28 );
+        if( start + compressed > m_buffer.limit() )
+        {
+            throw new ZipException( "Entry extends beyond the end of the archive: " + getName( index ) );
+        }
+        ByteBuffer data = m_buffer.duplicate();
+        data.limit( (int) ( start + compressed ) );
+        data.position( (int) start );
+        return data.slice().asReadOnlyBuffer();
+    }
+
+    private int findEndOfCentralDirectory()
+        throws ZipException
+    {
+        int last = m_buffer.limit() - END_SIZE;
+        int first = Math.max( 0, last - MAX_COMMENT );
+        for( int pos = last; pos >= first; pos-- )
+        {
+            if( m_buffer.getInt( pos ) == END_OF_CENTRAL_DIRECTORY && pos + END_SIZE + u16( pos + 20 ) <= m_buffer.limit() )
+            {
+                return pos;
+            }
+        }
+        throw new ZipException( "Not a zip archive: " + m_file );
+    }
+
+    private int header( final int index )
+    {
+        return (int) m_headers[ index ];
+    }
+
+    private boolean nameEquals( final int index, final byte[] name )
+    {
+        int start = m_nameStarts[ index ];
+        if( m_nameStarts[ index + 1 ] - start != name.length )
+        {
+            return false;
+        }
+        for( int i = 0; i < name.length; i++ )
+        {
+            if( m_names[ start + i ] != name[ i ] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int u16( final int pos )
+    {
+        return m_buffer.getShort( pos ) & 0xFFFF;
+    }
+
+    private long u32( final int pos )
+    {
+        return m_buffer.getInt( pos ) & 0xFFFFFFFFL;
+    }
+
+    private static int hash( final byte[] bytes, final int start, final int end )
+    {
+        int h = 0;
+        for( int i = start; i < end; i++ )
+        {
+            h = 31 * h + bytes[ i ];
+        }
+        // spread the bits, as the table size is a power of two
+        return h ^ ( h >>> 16 );
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer.
+     */
+    private static final class BufferInputStream extends InputStream
+    {
+
+        private final ByteBuffer m_data;
+
+        private BufferInputStream( final ByteBuffer data )
+        {
+            m_data = data;
+        }
+
+        @Override
+        public int read()
+        {
+            return m_data.hasRemaining() ? m_data.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read( final byte[] b, final int off, final int len )
+        {
+            if( len == 0 )
+            {
+                return 0;
+            }
+            if( !m_data.hasRemaining() )
+            {
+                return -1;
+            }
+            int n = Math.min( len, m_data.remaining() );
+            m_data.get( b, off, n );
+            return n;
+        }
+
+        @Override
+        public long skip( final long n )
+        {
+            int skipped = (int) Math.max( 0, Math.min( n, m_data.remaining() ) );
+            m_data.position( m_data.position() + skipped );
+            return skipped;
+        }
+
+        @Override
+        public int available()
+        {
+            return m_data.remaining();
+        }
+    }
+
+    /**
+     * Inflates raw deflate data and ends its inflater when closed. Like the streams of
+     * {@link java.util.zip.ZipFile}, it feeds a dummy byte after the data, which the inflater may need in
+     * nowrap mode.
+     */
+    private static final class EntryInflaterInputStream extends InflaterInputStream
+    {
+
+        private final long m_size;
+        private boolean m_eof;
+        private boolean m_closed;
+
+        private EntryInflaterInputStream( final InputStream in, final long size )
+        {
+            super( in, new Inflater( true ), (int) Math.max( 512, Math.min( size, 8192 ) ) );
+            m_size = size;
+        }
+
+        @Override
+        protected void fill()
+            throws IOException
+        {
+            if( m_eof )
+            {
+                throw new EOFException( "Unexpected end of ZLIB input stream" );
+            }
+            len = in.read( buf, 0, buf.length );
+            if( len == -1 )
+            {
+                buf[ 0 ] = 0;
+                len = 1;
+                m_eof = true;
+            }
+            inf.setInput( buf, 0, len );
+        }
+
+        @Override
+        public int available()
+            throws IOException
+        {
+            if( m_closed )
+            {
+                return 0;
+            }
+            long remaining = m_size - inf.getBytesWritten();
+            return remaining > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.max( 0, remaining );
+        }
+
+        @Override
+        public void close()
+            throws IOException
+        {
+            if( !m_closed )
+            {
+                m_closed = true;
+                super.close();
+                inf.end();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+/**
+ * How {@link FileUtils#materialize(java.io.File, java.io.File, boolean, org.ops4j.monitors.stream.StreamMonitor)}
+ * made a file available at its destination.
+ */
+public enum MaterializeStrategy
+{
+
+    /**
+     * The destination is a hard link to the source; both names share the same content.
+     */
+    HARD_LINK,
+
+    /**
+     * The destination is a symbolic link pointing to the source.
+     */
+    SYMBOLIC_LINK,
+
+    /**
+     * The content of the source was copied to the destination.
+     */
+    COPY
+
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.ops4j.lang.NullArgumentException;
+import org.ops4j.monitors.stream.StreamMonitor;
+import org.ops4j.monitors.stream.StreamProgress;
+
+/**
+ * Copies large files by splitting them into chunks that are copied concurrently with positional reads and
+ * writes. A single sequential stream rarely saturates an NVMe device or a network file system; several
+ * concurrent streams usually come much closer. Files smaller than the threshold are copied sequentially with
+ * {@link FileUtils#copyFile(File, File, StreamMonitor)}.
+ * <p>
+ * The destination file is set to the size of the source before the chunks are copied, so that every chunk can
+ * be written at its position. This does not reserve space: on most file systems the file is sparse at first,
+ * and its blocks are allocated as the chunks are written. Progress of all chunks is aggregated and reported as
+ * one transfer of the source file, which never goes backwards.
+ * </p>
+ */
+public class ParallelFileCopier
+{
+
+    /**
+     * Default size of the chunks (32 MB).
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 32L * 1024 * 1024;
+    /**
+     * Default minimum size of files to copy in parallel (128 MB).
+     */
+    public static final long DEFAULT_THRESHOLD = 128L * 1024 * 1024;
+    /**
+     * Default number of chunks copied at the same time.
+     */
+    public static final int DEFAULT_PARALLELISM = Math.max( 2, Math.min( 4, Runtime.getRuntime().availableProcessors() ) );
+
+    /**
+     * Size of the buffer each worker copies through.
+     */
+    private static final int IO_BUFFER_SIZE = 1024 * 1024;
+
+    private long m_chunkSize = DEFAULT_CHUNK_SIZE;
+    private long m_threshold = DEFAULT_THRESHOLD;
+    private int m_parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Creates a copier with the default settings.
+     */
+    public ParallelFileCopier()
+    {
+    }
+
+    /**
+     * Returns the size of the chunks a file is split into.
+     *
+     * @return chunk size in bytes
+     */
+    public long getChunkSize()
+    {
+        return m_chunkSize;
+    }
+
+    /**
+     * Sets the size of the chunks a file is split into.
+     *
+     * @param chunkSize chunk size in bytes
+     */
+    public void setChunkSize( final long chunkSize )
+    {
+        if( chunkSize < 1 )
+        {
+            throw new IllegalArgumentException( "chunkSize < 1" );
+        }
+        m_chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the minimum size of files that are copied in parallel.
+     *
+     * @return threshold in bytes
+     */
+    public long getThreshold()
+    {
+        return m_threshold;
+    }
+
+    /**
+     * Sets the minimum size of files that are copied in parallel.
+     *
+     * @param threshold threshold in bytes
+     */
+    public void setThreshold( final long threshold )
+    {
+        m_threshold = threshold;
+    }
+
+    /**
+     * Returns the number of chunks copied at the same time.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism()
+    {
+        return m_parallelism;
+    }
+
+    /**
+     * Sets the number of chunks copied at the same time.
+     *
+     * @param parallelism the parallelism
+     */
+    public void setParallelism( final int parallelism )
+    {
+        if( parallelism < 1 )
+        {
+            throw new IllegalArgumentException( "parallelism < 1" );
+        }
+        m_parallelism = parallelism;
+    }
+
+    /**
+     * Copies a file.
+     *
+     * @param src     The source file.
+     * @param dest    The destination file.
+     * @param monitor The monitor to use for reporting, may be null.
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException if any underlying I/O problem occurs.
+     */
+    public long copy( final File src, final File dest, final StreamMonitor monitor )
+        throws IOException
+    {
+        NullArgumentException.validateNotNull( src, "Source" );
+        NullArgumentException.validateNotNull( dest, "Destination" );
+
+        long size = src.length();
+        if( size < m_threshold || size <= m_chunkSize || m_parallelism == 1 )
+        {
+            FileUtils.copyFile( src, dest, monitor );
+            return size;
+        }
+        URL url = src.toURI().toURL();
+        StreamProgress progress = monitor == null ? null : new StreamProgress( monitor, url, size );
+        try
+        {
+            copyChunks( src, dest, size, progress );
+        }
+        catch( IOException e )
+        {
+            if( progress != null )
+            {
+                progress.error( e.getMessage() );
+            }
+            throw e;
+        }
+        if( progress != null )
+        {
+            progress.complete( size );
+        }
+        return size;
+    }
+
+    /**
+     * Sizes the destination and copies all chunks.
+     *
+     * @param src      The source file.
+     * @param dest     The destination file.
+     * @param size     The size of the source file.
+     * @param progress The progress to report to, may be null.
+     *
+     * @throws IOException if any underlying I/O problem occurs.
+     */
+    private void copyChunks( final File src, final File dest, final long size, final StreamProgress progress )
+        throws IOException
+    {
+        FileChannel source = FileChannel.open( src.toPath(), StandardOpenOption.READ );
+        try
+        {
+            RandomAccessFile target = new RandomAccessFile( dest, "rw" );
+            try
+            {
+                target.setLength( 0 );
+                target.setLength( size );
+                Worker worker = new Worker( source, target.getChannel(), size, progress );
+                int workers = (int) Math.min( m_parallelism, ( size + m_chunkSize - 1 ) / m_chunkSize );
+                ExecutorService executor = IOExecutors.newIOExecutor( "ParallelFileCopier", workers - 1 );
+                try
+                {
+                    List<Future<?>> futures = new ArrayList<Future<?>>();
+                    for( int i = 1; i < workers; i++ )
+                    {
+                        futures.add( executor.submit( worker ) );
+                    }
+                    // the calling thread is one of the workers
+                    worker.run();
+                    for( Future<?> future : futures )
+                    {
+                        future.get();
+                    }
+                }
+                catch( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    worker.fail( new HierarchicalIOException( "Interrupted while copying " + src, e ) );
+                }
+                catch( ExecutionException e )
+                {
+                    worker.fail( new HierarchicalIOException( e.getCause() ) );
+                }
+                finally
+                {
+                    executor.shutdown();
+                }
+                worker.rethrow();
+            }
+            finally
+            {
+                target.close();
+            }
+        }
+        finally
+        {
+            source.close();
+        }
+    }
+
+    /**
+     * Copies chunks until all chunks have been claimed. All workers of one copy share one instance.
+     */
+    private class Worker
+        implements Runnable
+    {
+
+        private final FileChannel m_source;
+        private final FileChannel m_target;
+        private final long m_size;
+        private final StreamProgress m_progress;
+        private final AtomicLong m_nextChunk = new AtomicLong();
+        private final AtomicLong m_copied = new AtomicLong();
+        private final AtomicReference<IOException> m_failure = new AtomicReference<IOException>();
+
+        Worker( final FileChannel source, final FileChannel target, final long size, final StreamProgress progress )
+        {
+            m_source = source;
+            m_target = target;
+            m_size = size;
+            m_progress = progress;
+        }
+
+        public void run()
+        {
+            BufferPool pool = StreamUtils.getBufferPool();
+            ByteBuffer buffer = pool.acquireDirect( (int) Math.min( IO_BUFFER_SIZE, m_chunkSize ) );
+            try
+            {
+                long start;
+                while( m_failure.get() == null && ( start = m_nextChunk.getAndIncrement() * m_chunkSize ) < m_size )
+                {
+                    copyChunk( buffer, start, Math.min( start + m_chunkSize, m_size ) );
+                }
+            }
+            catch( IOException e )
+            {
+                fail( e );
+            }
+            finally
+            {
+                pool.releaseDirect( buffer );
+            }
+        }
+
+        private void copyChunk( final ByteBuffer buffer, final long start, final long end )
+            throws IOException
+        {
+            long position = start;
+            while( position < end )
+            {
+                buffer.clear();
+                if( buffer.remaining() > end - position )
+                {
+                    buffer.limit( (int) ( end - position ) );
+                }
+                int read = m_source.read( buffer, position );
+                if( read < 0 )
+                {
+                    throw new IOException( "Source file shrunk while copying, expected " + m_size + " bytes" );
+                }
+                buffer.flip();
+                long writePosition = position;
+                while( buffer.hasRemaining() )
+                {
+                    writePosition += m_target.write( buffer, writePosition );
+                }
+                position += read;
+                m_copied.addAndGet( read );
+                if( m_progress != null )
+                {
+                    synchronized( m_progress )
+                    {
+                        // read the total under the lock, as a count taken before may be passed by another worker
+                        m_progress.update( m_copied.get() );
+                    }
+                }
+            }
+        }
+
+        void fail( final IOException e )
+        {
+            m_failure.compareAndSet( null, e );
+        }
+
+        void rethrow()
+            throws IOException
+        {
+            IOException failure = m_failure.get();
+            if( failure != null )
+            {
+                throw failure;
+            }
+        }
+    }
+
+}
@@ -22,9 +22,28 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.ops4j.lang.NullArgumentException;
 
 /**
  * Pipes asynchronously transfer data between process and system streams.
+ * <p>
+ * The data is moved by pumps that run on a shared executor. On Java 21 and later each pump runs on a virtual
+ * thread, so the many pumps of a set of child processes do not tie up platform threads while they block in
+ * read(). On older JDKs pumps run on a cached pool of daemon threads.
+ * </p>
+ * <p>
+ * By default a pump reads only as fast as its sink accepts the data, so a slow sink eventually stalls the
+ * process writing to the source. A pipe can instead be given a bounded buffer with an {@link OverflowPolicy},
+ * see {@link #buffer(int, OverflowPolicy)}; the source is then read by one task and the sink written by
+ * another.
+ * </p>
  */
 public class Pipe
 {
@@ -46,9 +65,136 @@ public class Pipe
      */
     static final Map<InputStream, Pump> PUMPS = new WeakHashMap<InputStream, Pump>();
 
+    /**
+     * Number of pumps that are running, including those of {@link Tee}s.
+     */
+    static final AtomicInteger LIVE_PUMPS = new AtomicInteger();
+
+    /**
+     * Executor the pumps run on, null until the first pump is started.
+     */
+    private static Executor s_pumpExecutor;
+
+    /**
+     * What a buffered pipe does with data that does not fit into its buffer.
+     */
+    public enum OverflowPolicy
+    {
+
+        /**
+         * Wait until the sink made room. The source is read no faster than the sink is written.
+         */
+        BLOCK,
+
+        /**
+         * Discard the oldest buffered data to make room, keeping the most recent output.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Discard the data that does not fit, keeping the buffered output.
+         */
+        DROP_NEWEST,
+
+        /**
+         * Write the data that does not fit to a temporary file, from which the sink is served once it caught
+         * up. Nothing is lost and the source is never slowed down, at the cost of disk space.
+         */
+        SPILL_TO_DISK
+
+    }
+
+    /**
+     * When a pipe flushes its sink.
+     */
+    public static final class FlushPolicy
+    {
+
+        /**
+         * Flush after every chunk read from the source.
+         */
+        public static final FlushPolicy IMMEDIATE = new FlushPolicy( 0, 0 );
+
+        /**
+         * Flush after a chunk that contains a line feed.
+         */
+        public static final FlushPolicy LINE = new FlushPolicy( -1, 0 );
+
+        // bytes between flushes, 0 for every chunk, -1 for line boundaries
+        private final long m_bytes;
+        private final long m_nanos;
+
+        private FlushPolicy( final long bytes, final long nanos )
+        {
+            m_bytes = bytes;
+            m_nanos = nanos;
+        }
+
+        /**
+         * Flush once at least the given number of bytes were written since the last flush.
+         *
+         * @param bytes the number of bytes
+         *
+         * @return the flush policy
+         */
+        public static FlushPolicy everyBytes( final long bytes )
+        {
+            if( bytes < 1 )
+            {
+                throw new IllegalArgumentException( "bytes < 1" );
+            }
+            return new FlushPolicy( bytes, 0 );
+        }
+
+        /**
+         * Flush once the given time passed since the last flush.
+         *
+         * @param interval the time between flushes
+         * @param unit     the unit of the interval
+         *
+         * @return the flush policy
+         */
+        public static FlushPolicy every( final long interval, final TimeUnit unit )
+        {
+            if( interval < 1 )
+            {
+                throw new IllegalArgumentException( "interval < 1" );
+            }
+            return new FlushPolicy( 0, unit.toNanos( interval ) );
+        }
+
+        boolean isDue( final byte[] buf, final int n, final long unflushed, final long lastFlush )
+        {
+            if( m_nanos > 0 )
+            {
+                return System.nanoTime() - lastFlush >= m_nanos;
+            }
+            if( m_bytes > 0 )
+            {
+                return unflushed >= m_bytes;
+            }
+            if( m_bytes < 0 )
+            {
+                for( int i = 0; i < n; i++ )
+                {
+                    if( buf[ i ] == '\n' )
+                    {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
     private final InputStream m_in;
     private final OutputStream m_out;
 
+    private int m_bufferCapacity;
+    private OverflowPolicy m_overflowPolicy;
+    private FlushPolicy m_flushPolicy = FlushPolicy.IMMEDIATE;
+
     private Pump m_pump;
 
     /**
@@ -75,6 +221,103 @@ public class Pipe
         m_out = processStream;
     }
 
+    /**
+     * Puts a bounded buffer between the source and the sink, so a slow or disconnected sink does not slow
+     * down reading the source. The buffer belongs to the pump of the input stream, so it is only applied when
+     * this pipe starts a new pump, not when it reuses the pump of a stopped pipe on the same stream.
+     *
+     * @param capacity the size of the buffer in bytes
+     * @param policy   what to do with data that does not fit
+     *
+     * @return pipe instance
+     *
+     * @throws IllegalArgumentException if capacity is less than 1
+     * @throws NullArgumentException    if policy is null
+     */
+    public synchronized Pipe buffer( final int capacity, final OverflowPolicy policy )
+    {
+        if( capacity < 1 )
+        {
+            throw new IllegalArgumentException( "capacity < 1" );
+        }
+        NullArgumentException.validateNotNull( policy, "Overflow policy" );
+        m_bufferCapacity = capacity;
+        m_overflowPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes the buffer of this pipe discarded because of its overflow policy.
+     *
+     * @return number of dropped bytes, 0 if the pipe is not started or not buffered
+     */
+    public synchronized long getDroppedBytes()
+    {
+        return null == m_pump || null == m_pump.m_buffer ? 0 : m_pump.m_buffer.getDropped();
+    }
+
+    /**
+     * Returns the number of bytes the buffer of this pipe wrote to disk because of its overflow policy.
+     *
+     * @return number of spilled bytes, 0 if the pipe is not started or not buffered
+     */
+    public synchronized long getSpilledBytes()
+    {
+        return null == m_pump || null == m_pump.m_buffer ? 0 : m_pump.m_buffer.getSpilled();
+    }
+
+    /**
+     * Sets when the sink is flushed. Flushing after every read, the default, costs a system call per chunk for
+     * sinks such as files and consoles; the other policies coalesce flushes for high-volume output. Whatever
+     * the policy, the sink is flushed whenever the pump runs out of data, so output is never held back.
+     *
+     * @param policy the flush policy
+     *
+     * @return pipe instance
+     *
+     * @throws NullArgumentException if policy is null
+     */
+    public synchronized Pipe flush( final FlushPolicy policy )
+    {
+        NullArgumentException.validateNotNull( policy, "Flush policy" );
+        m_flushPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes written to sinks by the pump of this pipe. The pump may have been started by
+     * an earlier pipe on the same stream, whose bytes are included.
+     *
+     * @return number of bytes pumped, 0 if the pipe is not started
+     */
+    public synchronized long getBytesPumped()
+    {
+        return null == m_pump ? 0 : m_pump.m_bytesPumped.get();
+    }
+
+    /**
+     * Returns the number of times the pump of this pipe flushed a sink.
+     *
+     * @return number of flushes, 0 if the pipe is not started
+     */
+    public synchronized long getFlushCount()
+    {
+        return null == m_pump ? 0 : m_pump.m_flushes.get();
+    }
+
+    /**
+     * Returns how long the pump of this pipe was kept from reading its source by the sink side: writing to or
+     * waiting for a sink, or waiting for room in a full buffer.
+     *
+     * @param unit the unit of the result
+     *
+     * @return the stall time, 0 if the pipe is not started
+     */
+    public synchronized long getStallTime( final TimeUnit unit )
+    {
+        return null == m_pump ? 0 : unit.convert( m_pump.m_stallNanos.get(), TimeUnit.NANOSECONDS );
+    }
+
     /**
      * Start piping data from input to output.
      * 
@@ -86,9 +329,12 @@ public class Pipe
         if( null == m_pump && null != m_in && null != m_out )
         {
             // might re-use a pump
-            m_pump = startPump( m_in );
+            m_pump = startPump( m_in, m_bufferCapacity > 0
+                                      ? new RingBuffer( m_bufferCapacity, m_overflowPolicy )
+                                      : null
+            );
             m_pump.setName( name );
-            m_pump.connect( m_out );
+            m_pump.connect( m_out, m_flushPolicy );
         }
         return this;
     }
@@ -101,41 +347,177 @@ public class Pipe
         if( null != m_pump )
         {
             // disconnect pump
-            m_pump.connect( null );
+            m_pump.connect( null, FlushPolicy.IMMEDIATE );
             m_pump.setName( m_pump.getName() + " (disconnected)" );
             m_pump = null;
         }
     }
 
-    private static class Pump extends Thread
+    /**
+     * Returns the number of pumps that are running. A pump keeps running while its input stream is open, also
+     * when its pipe was stopped, so that it can be reused by the next pipe on the same stream.
+     *
+     * @return the number of live pumps
+     */
+    public static int getLivePumpCount()
+    {
+        return LIVE_PUMPS.get();
+    }
+
+    /**
+     * Returns the executor the pumps run on.
+     *
+     * @return the pump executor
+     */
+    public static synchronized Executor getPumpExecutor()
+    {
+        if( null == s_pumpExecutor )
+        {
+            s_pumpExecutor = IOExecutors.newBlockingExecutor( "Pipe" );
+        }
+        return s_pumpExecutor;
+    }
+
+    /**
+     * Sets the executor new pumps run on. A pump occupies its thread until its input stream is closed, so the
+     * executor must not limit the number of threads, or pumps would wait forever for a thread.
+     *
+     * @param executor the pump executor
+     *
+     * @throws NullArgumentException if executor is null
+     */
+    public static synchronized void setPumpExecutor( final Executor executor )
+    {
+        NullArgumentException.validateNotNull( executor, "Executor" );
+        s_pumpExecutor = executor;
+    }
+
+    private static class Pump implements Runnable
     {
         // fixed input, but variable output
         private final InputStream m_source;
+        // optional, decouples reading the source from writing the sink
+        private final RingBuffer m_buffer;
         private OutputStream m_sink;
+        private FlushPolicy m_flushPolicy = FlushPolicy.IMMEDIATE;
+        private String m_name;
+        private Thread m_thread;
+
+        // explicit lock rather than a monitor, so a waiting pump does not pin the carrier of a virtual thread
+        private final Lock m_lock = new ReentrantLock();
+        private final Condition m_connected = m_lock.newCondition();
+
+        // tasks still running: the reader, and the writer of a buffered pump
+        private final AtomicInteger m_tasks;
 
-        public Pump( final InputStream source )
+        // written bytes not flushed yet, and when the sink was last flushed; guarded by m_lock
+        private long m_unflushed;
+        private long m_lastFlush = System.nanoTime();
+
+        private final AtomicLong m_bytesPumped = new AtomicLong();
+        private final AtomicLong m_flushes = new AtomicLong();
+        private final AtomicLong m_stallNanos = new AtomicLong();
+
+        public Pump( final InputStream source, final RingBuffer buffer )
         {
             m_source = source;
+            m_buffer = buffer;
+            m_tasks = new AtomicInteger( null == buffer ? 1 : 2 );
+        }
+
+        public String getName()
+        {
+            m_lock.lock();
+            try
+            {
+                return m_name;
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
         }
 
-        public void connect( final OutputStream sink )
+        public void setName( final String name )
         {
-            synchronized( this )
+            m_lock.lock();
+            try
+            {
+                m_name = name;
+                if( null != m_thread && null != name )
+                {
+                    m_thread.setName( name );
+                }
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+        }
+
+        public void connect( final OutputStream sink, final FlushPolicy flushPolicy )
+        {
+            m_lock.lock();
+            try
             {
+                if( null != m_sink && m_unflushed > 0 )
+                {
+                    try
+                    {
+                        // hand over everything written so far
+                        flush();
+                    }
+                    catch( final IOException ignore )
+                    {
+                        // the sink is replaced anyway
+                    }
+                }
                 m_sink = sink;
-                notify(); // wake-up pump
+                m_flushPolicy = flushPolicy;
+                m_connected.signal(); // wake-up pump
+            }
+            finally
+            {
+                m_lock.unlock();
             }
         }
 
         @Override
         public void run()
         {
+            final Thread thread = Thread.currentThread();
+            final String threadName = thread.getName();
+            m_lock.lock();
             try
             {
-                final byte[] buf = new byte[READ_BUF_SIZE];
-
-                // check the input is still OK to read
-                while( null != validate( m_source ) )
+                m_thread = thread;
+                if( null != m_name )
+                {
+                    thread.setName( m_name );
+                }
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
+            if( null != m_buffer )
+            {
+                // the sink is written by a task of its own
+                getPumpExecutor().execute( new Runnable()
+                {
+                    public void run()
+                    {
+                        drain();
+                    }
+                }
+                );
+            }
+            final BufferPool pool = StreamUtils.getBufferPool();
+            final byte[] buf = pool.acquire( READ_BUF_SIZE );
+            try
+            {
+                // a closed or broken source ends the loop with an exception or end-of-file
+                while( true )
                 {
                     // this call might block...
                     final int n = m_source.read( buf );
@@ -144,22 +526,71 @@ public class Pipe
                         break; // end-of-file
                     }
 
-                    synchronized( this )
+                    final long start = System.nanoTime();
+                    if( null != m_buffer )
                     {
-                        // check output is still OK to write
-                        while( null == validate( m_sink ) )
-                        {
-                            wait(); // disconnected, so save data and wait
-                        }
-
-                        // pump out saved data
-                        m_sink.write( buf, 0, n );
-                        m_sink.flush();
+                        m_buffer.write( buf, 0, n );
+                    }
+                    else
+                    {
+                        deliver( buf, n, false );
+                    }
+                    m_stallNanos.addAndGet( System.nanoTime() - start );
+                }
+            }
+            catch( final Exception e )
+            {
+                // closed or broken source, or a spurious exception
+            }
+            finally
+            {
+                pool.release( buf );
+                if( null != m_buffer )
+                {
+                    m_buffer.close();
+                }
+                synchronized( PUMPS )
+                {
+                    // stopping, so remove ourselves
+                    if( PUMPS.get( m_source ) == this )
+                    {
+                        PUMPS.remove( m_source );
                     }
                 }
+                m_lock.lock();
+                try
+                {
+                    // hand a pooled thread back under its own name
+                    m_thread = null;
+                    thread.setName( threadName );
+                }
+                finally
+                {
+                    m_lock.unlock();
+                }
+                finished();
+            }
+        }
+
+        /**
+         * Writes the content of the buffer to the sink until the source is exhausted.
+         */
+        private void drain()
+        {
+            final BufferPool pool = StreamUtils.getBufferPool();
+            final byte[] buf = pool.acquire( READ_BUF_SIZE );
+            try
+            {
+                int n;
+                while( ( n = m_buffer.read( buf ) ) != -1 )
+                {
+                    deliver( buf, n, true );
+                }
+                flushIfPending();
             }
             catch( final IOException e )
             {
+                m_buffer.abort();
                 if( null != m_sink )
                 {
                     // only report if connected
@@ -169,48 +600,129 @@ public class Pipe
             catch( final Exception e )
             {
                 // ignore spurious exceptions
+                m_buffer.abort();
             }
             finally
             {
-                synchronized( PUMPS )
+                m_buffer.release();
+                pool.release( buf );
+                finished();
+            }
+        }
+
+        /**
+         * Writes data to the sink, waiting while the pump is disconnected. A sink that fails is treated as
+         * disconnected, and the data is kept for the next sink.
+         *
+         * @param buf      the data
+         * @param n        number of bytes to write
+         * @param buffered true if the data comes from the buffer, false if it was just read from the source
+         */
+        private void deliver( final byte[] buf, final int n, final boolean buffered )
+            throws IOException, InterruptedException
+        {
+            m_lock.lock();
+            try
+            {
+                while( true )
                 {
-                    // stopping, so remove ourselves
-                    if( PUMPS.get( m_source ) == this )
+                    while( null == m_sink )
                     {
-                        PUMPS.remove( m_source );
+                        m_connected.await(); // disconnected, so save data and wait
+                    }
+                    try
+                    {
+                        // pump out saved data
+                        m_sink.write( buf, 0, n );
+                        m_unflushed += n;
+                        if( m_flushPolicy.isDue( buf, n, m_unflushed, m_lastFlush ) || !moreAvailable( buffered ) )
+                        {
+                            flush();
+                        }
+                        m_bytesPumped.addAndGet( n );
+                        return;
+                    }
+                    catch( final IOException e )
+                    {
+                        // broken sink, wait for another one
+                        m_sink = null;
+                        m_unflushed = 0;
                     }
                 }
             }
+            finally
+            {
+                m_lock.unlock();
+            }
         }
-    }
 
-    static InputStream validate( final InputStream is )
-    {
-        try
+        /**
+         * Checks whether more data can be delivered without waiting. If not, the sink is flushed, so output
+         * is never held back while the pump waits for data.
+         */
+        private boolean moreAvailable( final boolean buffered )
         {
-            is.available(); // test input stream without disturbing content
-            return is;
+            if( m_flushPolicy == FlushPolicy.IMMEDIATE )
+            {
+                return false;
+            }
+            if( buffered )
+            {
+                return !m_buffer.isEmpty();
+            }
+            try
+            {
+                return m_source.available() > 0;
+            }
+            catch( final IOException e )
+            {
+                // the next read will tell
+                return false;
+            }
         }
-        catch( final Exception e )
+
+        private void flushIfPending()
+            throws IOException
         {
-            return null;
+            m_lock.lock();
+            try
+            {
+                if( null != m_sink && m_unflushed > 0 )
+                {
+                    flush();
+                }
+            }
+            finally
+            {
+                m_lock.unlock();
+            }
         }
-    }
 
-    static OutputStream validate( final OutputStream os )
-    {
-        try
+        /**
+         * Flushes the sink; called with the lock held.
+         */
+        private void flush()
+            throws IOException
         {
-            os.flush(); // test output stream without disturbing content
-            return os;
+            m_sink.flush();
+            m_unflushed = 0;
+            m_lastFlush = System.nanoTime();
+            m_flushes.incrementAndGet();
         }
-        catch( final Exception e )
+
+        /**
+         * Called by the reading and the writing task when they end; the pump is gone when both did.
+         */
+        private void finished()
         {
-            return null;
+            if( m_tasks.decrementAndGet() == 0 )
+            {
+                LIVE_PUMPS.decrementAndGet();
+            }
         }
     }
 
-    static Pump startPump( final InputStream is )
+    static Pump startPump( final InputStream is, final RingBuffer buffer )
     {
         synchronized( PUMPS )
         {
@@ -218,10 +730,18 @@ public class Pipe
             Pump pump = PUMPS.get( is );
             if( null == pump )
             {
-                // new stream needs pump thread
-                pump = new Pump( is );
-                pump.setDaemon( true );
-                pump.start();
+                // new stream needs a pump
+                pump = new Pump( is, buffer );
+                LIVE_PUMPS.incrementAndGet();
+                try
+                {
+                    getPumpExecutor().execute( pump );
+                }
+                catch( final RuntimeException e )
+                {
+                    LIVE_PUMPS.decrementAndGet();
+                    throw e;
+                }
 
                 PUMPS.put( is, pump );
             }
@@ -19,7 +19,7 @@ package org.ops4j.io;
 
 import java.io.PrintStream;
 import java.net.URL;
-import org.ops4j.monitors.stream.StreamMonitor;
+import org.ops4j.monitors.stream.LongStreamMonitor;
 
 /**
  * PrintStreamMonitor is a convenience implementation of the StreamMonitor for output to
@@ -31,11 +31,11 @@ import org.ops4j.monitors.stream.StreamMonitor;
  * </code></pre>
  */
 public class PrintStreamMonitor
-    implements StreamMonitor
+    implements LongStreamMonitor
 {
 
     private boolean m_first = true;
-    private int m_expected;
+    private long m_expected;
     private long m_start;
     private PrintStream m_out;
 
@@ -55,6 +55,18 @@ public class PrintStreamMonitor
      * @param count    the number of bytes downloaded.
      */
     public void notifyUpdate( URL resource, int expected, int count )
+    {
+        notifyUpdate( resource, (long) expected, (long) count );
+    }
+
+    /**
+     * Notify the monitor of the update in the download status.
+     *
+     * @param resource the name of the remote resource being downloaded.
+     * @param expected the expected number of bytes to be downloaded.
+     * @param count    the number of bytes downloaded.
+     */
+    public void notifyUpdate( URL resource, long expected, long count )
     {
         if( m_first )
         {
@@ -62,8 +74,15 @@ public class PrintStreamMonitor
             m_start = System.currentTimeMillis();
             m_first = false;
         }
-        int completed = ( count * 100 ) / expected;
-        m_out.print( resource.toExternalForm() + " : " + completed + "%    \r" );
+        if( expected > 0 )
+        {
+            long completed = ( count * 100 ) / expected;
+            m_out.print( resource.toExternalForm() + " : " + completed + "%    \r" );
+        }
+        else
+        {
+            m_out.print( resource.toExternalForm() + " : " + count + " bytes    \r" );
+        }
     }
 
     /**
@@ -75,8 +94,8 @@ public class PrintStreamMonitor
     public void notifyCompletion( URL resource )
     {
         long now = System.currentTimeMillis();
-        long time = now - m_start;
-        int kBps = (int) ( m_expected / time );
+        long time = Math.max( now - m_start, 1 );
+        long kBps = m_expected / time;
         m_out.println( resource.toExternalForm() + " : " + kBps + " kBps.          " );
     }
 
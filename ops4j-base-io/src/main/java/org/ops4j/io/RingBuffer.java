@@ -0,0 +1,369 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded byte buffer between one writing and one reading thread. What happens when the writer produces more
+ * than fits is decided by the {@link Pipe.OverflowPolicy}. With {@link Pipe.OverflowPolicy#SPILL_TO_DISK}
+ * the overflow is appended to a temporary file; once anything was spilled, all data goes through the file until
+ * the reader has caught up, so the order of the bytes is kept.
+ */
+final class RingBuffer
+{
+
+    private final byte[] m_buffer;
+    private final Pipe.OverflowPolicy m_policy;
+
+    private final Lock m_lock = new ReentrantLock();
+    private final Condition m_notEmpty = m_lock.newCondition();
+    private final Condition m_notFull = m_lock.newCondition();
+
+    /**
+     * Index of the next byte to read.
+     */
+    private int m_head;
+    /**
+     * Number of bytes in the buffer.
+     */
+    private int m_count;
+    private boolean m_closed;
+    private boolean m_aborted;
+    private long m_dropped;
+    private long m_spilled;
+
+    private File m_spillFile;
+    private RandomAccessFile m_spill;
+    private long m_spillRead;
+    private long m_spillWrite;
+
+    /**
+     * Creates a ring buffer.
+     *
+     * @param capacity the number of bytes the buffer holds
+     * @param policy   what to do when the buffer is full
+     */
+    RingBuffer( final int capacity, final Pipe.OverflowPolicy policy )
+    {
+        if( capacity < 1 )
+        {
+            throw new IllegalArgumentException( "capacity < 1" );
+        }
+        m_buffer = new byte[capacity];
+        m_policy = policy;
+    }
+
+    /**
+     * Adds data to the buffer.
+     *
+     * @param data   the data
+     * @param offset the start of the data
+     * @param length the number of bytes
+     *
+     * @throws IOException if the buffer was aborted, the spill file cannot be written or the thread was
+     *                     interrupted while waiting for space
+     */
+    void write( final byte[] data, final int offset, final int length )
+        throws IOException
+    {
+        m_lock.lock();
+        try
+        {
+            int off = offset;
+            int len = length;
+            while( len > 0 )
+            {
+                if( m_aborted )
+                {
+                    throw new IOException( "Buffer aborted" );
+                }
+                if( m_spillWrite > m_spillRead )
+                {
+                    // keep the order: once spilling, everything goes to disk until the reader caught up
+                    spill( data, off, len );
+                    return;
+                }
+                int free = m_buffer.length - m_count;
+                if( free == 0 )
+                {
+                    switch( m_policy )
+                    {
+                        case DROP_NEWEST:
+                            m_dropped += len;
+                            return;
+                        case DROP_OLDEST:
+                            int drop = Math.min( len, m_buffer.length );
+                            m_head = ( m_head + drop ) % m_buffer.length;
+                            m_count -= drop;
+                            m_dropped += drop;
+                            continue;
+                        case SPILL_TO_DISK:
+                            spill( data, off, len );
+                            return;
+                        default:
+                            m_notFull.await();
+                            continue;
+                    }
+                }
+                int chunk = Math.min( len, free );
+                int tail = ( m_head + m_count ) % m_buffer.length;
+                int first = Math.min( chunk, m_buffer.length - tail );
+                System.arraycopy( data, off, m_buffer, tail, first );
+                System.arraycopy( data, off + first, m_buffer, 0, chunk - first );
+                m_count += chunk;
+                off += chunk;
+                len -= chunk;
+                m_notEmpty.signal();
+            }
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for buffer space" );
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Takes data from the buffer, waiting until there is some.
+     *
+     * @param data the array to read into
+     *
+     * @return the number of bytes read, or -1 if the buffer is closed and empty.
+     *
+     * @throws IOException if the spill file cannot be read or the thread was interrupted
+     */
+    int read( final byte[] data )
+        throws IOException
+    {
+        return read( data, 0, data.length );
+    }
+
+    /**
+     * Takes data from the buffer, waiting until there is some.
+     *
+     * @param data   the array to read into
+     * @param offset the start of the data in the array
+     * @param length the maximum number of bytes to read
+     *
+     * @return the number of bytes read, or -1 if the buffer is closed and empty.
+     *
+     * @throws IOException if the spill file cannot be read or the thread was interrupted
+     */
+    int read( final byte[] data, final int offset, final int length )
+        throws IOException
+    {
+        m_lock.lock();
+        try
+        {
+            while( m_count == 0 && m_spillWrite == m_spillRead )
+            {
+                if( m_closed || m_aborted )
+                {
+                    return -1;
+                }
+                m_notEmpty.await();
+            }
+            if( m_count > 0 )
+            {
+                int chunk = Math.min( length, m_count );
+                int first = Math.min( chunk, m_buffer.length - m_head );
+                System.arraycopy( m_buffer, m_head, data, offset, first );
+                System.arraycopy( m_buffer, 0, data, offset + first, chunk - first );
+                m_head = ( m_head + chunk ) % m_buffer.length;
+                m_count -= chunk;
+                m_notFull.signal();
+                return chunk;
+            }
+            int chunk = (int) Math.min( length, m_spillWrite - m_spillRead );
+            m_spill.seek( m_spillRead );
+            m_spill.readFully( data, offset, chunk );
+            m_spillRead += chunk;
+            if( m_spillRead == m_spillWrite )
+            {
+                // caught up, back to memory
+                m_spillRead = 0;
+                m_spillWrite = 0;
+                m_spill.setLength( 0 );
+            }
+            return chunk;
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for data" );
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether there is data to read.
+     *
+     * @return true if a read would have to wait
+     */
+    boolean isEmpty()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_count == 0 && m_spillWrite == m_spillRead;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Marks the end of the data. The reader gets the remaining data, then end of stream.
+     */
+    void close()
+    {
+        m_lock.lock();
+        try
+        {
+            m_closed = true;
+            m_notEmpty.signalAll();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the buffer because the reader failed. Further writes fail and the spill file is deleted.
+     */
+    void abort()
+    {
+        m_lock.lock();
+        try
+        {
+            m_aborted = true;
+            m_count = 0;
+            m_notFull.signalAll();
+            m_notEmpty.signalAll();
+            deleteSpill();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the spill file, if any. Called by the reader once it got end of stream.
+     */
+    void release()
+    {
+        m_lock.lock();
+        try
+        {
+            deleteSpill();
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes dropped by the overflow policy.
+     *
+     * @return number of dropped bytes
+     */
+    long getDropped()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_dropped;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes that went through the spill file.
+     *
+     * @return number of spilled bytes
+     */
+    long getSpilled()
+    {
+        m_lock.lock();
+        try
+        {
+            return m_spilled;
+        }
+        finally
+        {
+            m_lock.unlock();
+        }
+    }
+
+    private void spill( final byte[] data, final int offset, final int length )
+        throws IOException
+    {
+        if( null == m_spill )
+        {
+            m_spillFile = File.createTempFile( "ops4j-pipe-", ".spill" );
+            m_spillFile.deleteOnExit();
+            m_spill = new RandomAccessFile( m_spillFile, "rw" );
+        }
+        m_spill.seek( m_spillWrite );
+        m_spill.write( data, offset, length );
+        m_spillWrite += length;
+        m_spilled += length;
+        m_notEmpty.signal();
+    }
+
+    private void deleteSpill()
+    {
+        if( null != m_spill )
+        {
+            try
+            {
+                m_spill.close();
+            }
+            catch( IOException ignore )
+            {
+                // nothing to save
+            }
+            m_spillFile.delete();
+            m_spill = null;
+            m_spillRead = 0;
+            m_spillWrite = 0;
+        }
+    }
+
+}
@@ -18,10 +18,8 @@
 
 package org.ops4j.io;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -29,9 +27,21 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.zip.Checksum;
 import org.ops4j.lang.NullArgumentException;
 import org.ops4j.monitors.stream.StreamMonitor;
+import org.ops4j.monitors.stream.StreamProgress;
 
 /**
  * @author <a href="http://www.ops4j.org">Open Particpation Software for Java</a>
@@ -41,10 +51,51 @@ public final class StreamUtils
 {
 
     /**
-     * Buffer size.
+     * Buffer size used when the size of the data is not known.
      */
     private static final int BUFFER_SIZE = 102400;
 
+    /**
+     * Smallest buffer size used for copying.
+     */
+    private static final int MIN_BUFFER_SIZE = 4096;
+
+    /**
+     * Largest buffer size used for copying.
+     */
+    private static final int MAX_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Maximum number of bytes handed to a single transferTo/transferFrom call, which is also the granularity
+     * at which progress is reported for channel transfers.
+     */
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Size of the buffer used for copying characters.
+     */
+    private static final int CHAR_BUFFER_SIZE = 8192;
+
+    /**
+     * Size of each of the two buffers used for comparing streams.
+     */
+    private static final int COMPARE_BUFFER_SIZE = 65536;
+
+    /**
+     * Digits used for hexadecimal output.
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Handle to Arrays.mismatch on Java 9 and later, null otherwise.
+     */
+    private static final MethodHandle MISMATCH = findMismatch();
+
+    /**
+     * The pool copy buffers are taken from.
+     */
+    private static volatile BufferPool s_bufferPool = new DefaultBufferPool();
+
     /**
      * Private constructor to ensure no instances are created.
      */
@@ -52,6 +103,31 @@ public final class StreamUtils
     {
     }
 
+    /**
+     * Returns the pool that copy buffers are taken from. The pool is shared by the copy methods of this class,
+     * {@link FileUtils}, {@link ZipExploder} and {@link Pipe}.
+     *
+     * @return the buffer pool in use
+     */
+    public static BufferPool getBufferPool()
+    {
+        return s_bufferPool;
+    }
+
+    /**
+     * Replaces the pool that copy buffers are taken from.
+     *
+     * @param bufferPool the new buffer pool
+     *
+     * @throws NullArgumentException if bufferPool is null.
+     */
+    public static void setBufferPool( BufferPool bufferPool )
+        throws NullArgumentException
+    {
+        NullArgumentException.validateNotNull( bufferPool, "bufferPool" );
+        s_bufferPool = bufferPool;
+    }
+
     /**
      * Copy a stream.
      *
@@ -69,7 +145,8 @@ public final class StreamUtils
     }
 
     /**
-     * Copy a stream.
+     * Copy a stream. If both streams are plain file streams, the bytes are moved with
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)} instead of being pumped through the heap.
      *
      * @param sourceURL    the source url
      * @param expected     the expected size in bytes
@@ -85,54 +162,613 @@ public final class StreamUtils
                                    InputStream source, OutputStream destination, boolean closeStreams
     )
         throws IOException, NullArgumentException
+    {
+        copyStream( monitor, sourceURL, (long) expected, source, destination, closeStreams );
+    }
+
+    /**
+     * Copy a stream of any size. Progress is reported to the monitor with the default throttling of
+     * {@link StreamProgress}; a {@link org.ops4j.monitors.stream.LongStreamMonitor} receives the 64 bit counts.
+     *
+     * @param monitor      The StreamMonitor to report progress to, may be null.
+     * @param sourceURL    the source url
+     * @param expected     the expected size in bytes, zero or negative if unknown
+     * @param source       the source input stream
+     * @param destination  the destination output stream
+     * @param closeStreams TRUE if the streams should be closed on completion
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the src or dest arguments are null.
+     */
+    public static void copyStream( StreamMonitor monitor, URL sourceURL, long expected,
+                                   InputStream source, OutputStream destination, boolean closeStreams
+    )
+        throws IOException, NullArgumentException
+    {
+        copy( progress( monitor, sourceURL, expected ), expected, source, destination, closeStreams, null, null );
+    }
+
+    /**
+     * Copy a stream, reporting to a progress tracker. This allows the caller to choose how often the monitor
+     * is notified.
+     *
+     * @param progress     the progress tracker, may be null.
+     * @param source       the source input stream
+     * @param destination  the destination output stream
+     * @param closeStreams TRUE if the streams should be closed on completion
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the src or dest arguments are null.
+     */
+    public static long copyStream( StreamProgress progress, InputStream source, OutputStream destination,
+                                   boolean closeStreams )
+        throws IOException, NullArgumentException
+    {
+        return copy( progress, progress == null ? 0 : progress.getExpected(), source, destination, closeStreams,
+                     null, null
+        );
+    }
+
+    /**
+     * Copy a stream and compute message digests of the copied bytes in the same pass. The digests are updated
+     * from the buffer that is written to the destination, so the data is read only once. Use
+     * {@link MessageDigest#digest(byte[], int, int)} or {@link #toHex(byte[])} to get the results.
+     *
+     * @param source       the source input stream
+     * @param destination  the destination output stream
+     * @param closeStreams TRUE if the streams should be closed on completion
+     * @param digests      the digests to update
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the src or dest arguments are null.
+     */
+    public static long copyStream( InputStream source, OutputStream destination, boolean closeStreams,
+                                   MessageDigest... digests )
+        throws IOException, NullArgumentException
+    {
+        return copy( null, 0, source, destination, closeStreams, digests, null );
+    }
+
+    /**
+     * Copy a stream and compute checksums, such as CRC32, of the copied bytes in the same pass.
+     *
+     * @param source       the source input stream
+     * @param destination  the destination output stream
+     * @param closeStreams TRUE if the streams should be closed on completion
+     * @param checksums    the checksums to update
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the src or dest arguments are null.
+     */
+    public static long copyStream( InputStream source, OutputStream destination, boolean closeStreams,
+                                   Checksum... checksums )
+        throws IOException, NullArgumentException
+    {
+        return copy( null, 0, source, destination, closeStreams, null, checksums );
+    }
+
+    /**
+     * Copy a stream, reporting to a progress tracker, and compute message digests and checksums of the copied
+     * bytes in the same pass.
+     *
+     * @param progress     the progress tracker, may be null.
+     * @param source       the source input stream
+     * @param destination  the destination output stream
+     * @param closeStreams TRUE if the streams should be closed on completion
+     * @param digests      the digests to update, may be null
+     * @param checksums    the checksums to update, may be null
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the src or dest arguments are null.
+     */
+    public static long copyStream( StreamProgress progress, InputStream source, OutputStream destination,
+                                   boolean closeStreams, MessageDigest[] digests, Checksum[] checksums )
+        throws IOException, NullArgumentException
+    {
+        return copy( progress, progress == null ? 0 : progress.getExpected(), source, destination, closeStreams,
+                     digests, checksums
+        );
+    }
+
+    /**
+     * Implementation of the copyStream variants.
+     *
+     * @param progress     the progress tracker, may be null.
+     * @param expected     the expected size in bytes, zero or negative if unknown
+     * @param source       the source input stream
+     * @param destination  the destination output stream
+     * @param closeStreams TRUE if the streams should be closed on completion
+     * @param digests      the digests to update, may be null
+     * @param checksums    the checksums to update, may be null
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the src or dest arguments are null.
+     */
+    private static long copy( StreamProgress progress, long expected, InputStream source,
+                              OutputStream destination, boolean closeStreams, MessageDigest[] digests,
+                              Checksum[] checksums )
+        throws IOException, NullArgumentException
     {
         NullArgumentException.validateNotNull( source, "source" );
         NullArgumentException.validateNotNull( destination, "destination" );
 
         int length;
-        int count = 0; // cumulative total read
-        byte[] buffer = new byte[BUFFER_SIZE];
-        BufferedOutputStream dest;
-        if( destination instanceof BufferedOutputStream )
+        long count = 0; // cumulative total read
+        BufferPool pool = s_bufferPool;
+        byte[] buffer = pool.acquire( bufferSize( expected ) );
+        try
         {
-            dest = (BufferedOutputStream) destination;
+            FileChannel sourceChannel = fileChannel( source );
+            FileChannel destinationChannel = fileChannel( destination );
+            boolean digesting = ( digests != null && digests.length > 0 )
+                                || ( checksums != null && checksums.length > 0 );
+            if( sourceChannel != null && destinationChannel != null && !digesting && isSeekable( sourceChannel ) )
+            {
+                // let the kernel move the bytes; whatever is left over is picked up by the loop below
+                count = transferTo( progress, sourceChannel, destinationChannel );
+            }
+            // no Buffered* wrappers: the buffer is large enough for reads and writes to go straight through
+            while( ( length = source.read( buffer ) ) >= 0 )
+            {
+                count = count + length;
+                destination.write( buffer, 0, length );
+                if( digesting )
+                {
+                    update( buffer, length, digests, checksums );
+                }
+                if( null != progress )
+                {
+                    progress.update( count );
+                }
+            }
+            destination.flush();
+            return count;
         }
-        else
+        finally
         {
-            dest = new BufferedOutputStream( destination );
+            pool.release( buffer );
+            if( closeStreams )
+            {
+                closeStreams( source, destination );
+            }
+            if( null != progress )
+            {
+                progress.complete( count );
+            }
         }
-        BufferedInputStream src;
-        if( source instanceof BufferedInputStream )
+    }
+
+    /**
+     * Updates digests and checksums with the start of a buffer.
+     *
+     * @param buffer    the buffer
+     * @param length    the number of bytes to use
+     * @param digests   the digests to update, may be null
+     * @param checksums the checksums to update, may be null
+     */
+    private static void update( byte[] buffer, int length, MessageDigest[] digests, Checksum[] checksums )
+    {
+        if( digests != null )
         {
-            src = (BufferedInputStream) source;
+            for( MessageDigest digest : digests )
+            {
+                digest.update( buffer, 0, length );
+            }
         }
-        else
+        if( checksums != null )
         {
-            src = new BufferedInputStream( source );
+            for( Checksum checksum : checksums )
+            {
+                checksum.update( buffer, 0, length );
+            }
         }
+    }
+
+    /**
+     * Converts bytes, such as a digest, to a lower case hexadecimal string.
+     *
+     * @param bytes the bytes to convert
+     *
+     * @return the hexadecimal representation, two characters per byte.
+     */
+    public static String toHex( byte[] bytes )
+    {
+        return appendHex( new StringBuilder( bytes.length * 2 ), bytes, 0, bytes.length ).toString();
+    }
+
+    /**
+     * Appends bytes, such as a digest, in lower case hexadecimal to a StringBuilder. Together with
+     * {@link MessageDigest#digest(byte[], int, int)} this allows rendering digests into reused buffers.
+     *
+     * @param out    the builder to append to
+     * @param bytes  the bytes to convert
+     * @param offset index of the first byte to convert
+     * @param length number of bytes to convert
+     *
+     * @return the builder
+     */
+    public static StringBuilder appendHex( StringBuilder out, byte[] bytes, int offset, int length )
+    {
+        for( int i = offset; i < offset + length; i++ )
+        {
+            out.append( HEX_DIGITS[ ( bytes[ i ] >> 4 ) & 0x0F ] );
+            out.append( HEX_DIGITS[ bytes[ i ] & 0x0F ] );
+        }
+        return out;
+    }
+
+    /**
+     * Copy a channel. When either side is a {@link FileChannel} the transfer is delegated to
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)} or
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}, which lets the operating system move
+     * the bytes without copying them through the Java heap. Other channels are copied through a direct buffer.
+     * Non-file channels must be in blocking mode.
+     *
+     * @param monitor       The StreamMonitor to report progress to, may be null.
+     * @param sourceURL     the source url
+     * @param expected      the expected size in bytes, zero or negative if unknown
+     * @param source        the source channel
+     * @param destination   the destination channel
+     * @param closeChannels TRUE if the channels should be closed on completion
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the source or destination arguments are null.
+     */
+    public static long copyChannel( StreamMonitor monitor, URL sourceURL, long expected,
+                                    ReadableByteChannel source, WritableByteChannel destination,
+                                    boolean closeChannels )
+        throws IOException, NullArgumentException
+    {
+        NullArgumentException.validateNotNull( source, "source" );
+        NullArgumentException.validateNotNull( destination, "destination" );
+
+        StreamProgress progress = progress( monitor, sourceURL, expected );
+        long count = 0;
         try
         {
-            while( ( length = src.read( buffer ) ) >= 0 )
+            if( source instanceof FileChannel && isSeekable( (FileChannel) source ) )
             {
-                count = count + length;
-                dest.write( buffer, 0, length );
-                if( null != monitor )
+                FileChannel in = (FileChannel) source;
+                count = transferTo( progress, in, destination );
+                if( in.position() < in.size() )
                 {
-                    monitor.notifyUpdate( sourceURL, expected, count );
+                    // the target refused to take more (e.g. a non-blocking socket); finish the slow way
+                    count = copyBuffered( progress, expected, source, destination, count );
                 }
             }
-            dest.flush();
+            else if( destination instanceof FileChannel && isSeekable( (FileChannel) destination ) )
+            {
+                count = transferFrom( progress, source, (FileChannel) destination );
+            }
+            else
+            {
+                count = copyBuffered( progress, expected, source, destination, 0 );
+            }
+            return count;
         }
         finally
         {
-            if( closeStreams )
+            if( closeChannels )
+            {
+                closeChannels( source, destination );
+            }
+            if( null != progress )
+            {
+                progress.complete( count );
+            }
+        }
+    }
+
+    /**
+     * Copy a memory mapped file to a channel. The file is written window by window straight from the mapped
+     * memory; each window is unmapped as soon as it has been written.
+     *
+     * @param monitor     The StreamMonitor to report progress to, may be null.
+     * @param sourceURL   the source url
+     * @param source      the mapped source file
+     * @param destination the destination channel
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the source or destination arguments are null.
+     */
+    public static long copyMapped( StreamMonitor monitor, URL sourceURL, MappedFile source,
+                                   WritableByteChannel destination )
+        throws IOException, NullArgumentException
+    {
+        NullArgumentException.validateNotNull( source, "source" );
+        return copyMapped( monitor, sourceURL, source, 0, source.size(), destination );
+    }
+
+    /**
+     * Copy a region of a memory mapped file to a channel. The region is written window by window straight from
+     * the mapped memory; each window is unmapped as soon as it has been written.
+     *
+     * @param monitor     The StreamMonitor to report progress to, may be null.
+     * @param sourceURL   the source url
+     * @param source      the mapped source file
+     * @param position    the start of the region
+     * @param length      the length of the region
+     * @param destination the destination channel
+     *
+     * @return the number of bytes copied.
+     *
+     * @throws IOException           if an IO error occurs
+     * @throws NullArgumentException if either the source or destination arguments are null.
+     */
+    public static long copyMapped( StreamMonitor monitor, URL sourceURL, MappedFile source, long position,
+                                   long length, WritableByteChannel destination )
+        throws IOException, NullArgumentException
+    {
+        NullArgumentException.validateNotNull( source, "source" );
+        NullArgumentException.validateNotNull( destination, "destination" );
+        if( position < 0 || length < 0 || position + length > source.size() )
+        {
+            throw new IllegalArgumentException( "Region " + position + "+" + length + " is outside of the file" );
+        }
+
+        StreamProgress progress = progress( monitor, sourceURL, length );
+        long count = 0;
+        try
+        {
+            while( count < length )
+            {
+                ByteBuffer window = source.map( position + count, Math.min( source.getWindowSize(), length - count ) );
+                try
+                {
+                    while( window.hasRemaining() )
+                    {
+                        count = count + destination.write( window );
+                        if( null != progress )
+                        {
+                            progress.update( count );
+                        }
+                    }
+                }
+                finally
+                {
+                    MappedFile.unmap( window );
+                }
+            }
+            return count;
+        }
+        finally
+        {
+            if( null != progress )
+            {
+                progress.complete( count );
+            }
+        }
+    }
+
+    /**
+     * Creates a progress tracker with the default throttling.
+     *
+     * @param monitor   The StreamMonitor to report progress to, may be null.
+     * @param sourceURL the source url
+     * @param expected  the expected size in bytes
+     *
+     * @return the tracker, or null if there is no monitor.
+     */
+    private static StreamProgress progress( StreamMonitor monitor, URL sourceURL, long expected )
+    {
+        return monitor == null ? null : new StreamProgress( monitor, sourceURL, expected );
+    }
+
+    /**
+     * Returns the channel behind a plain file stream. Subclasses are excluded as they may override the
+     * read/write methods and expect them to be called.
+     *
+     * @param stream The stream to inspect.
+     *
+     * @return The file channel of the stream, or null if the stream is not a plain file stream.
+     */
+    private static FileChannel fileChannel( Object stream )
+    {
+        if( stream.getClass() == FileInputStream.class )
+        {
+            return ( (FileInputStream) stream ).getChannel();
+        }
+        if( stream.getClass() == FileOutputStream.class )
+        {
+            return ( (FileOutputStream) stream ).getChannel();
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a file channel has a position, which the transfer methods rely on. Channels of named pipes
+     * and of devices such as a terminal have none; they are copied through a buffer instead.
+     *
+     * @param channel the channel to check
+     *
+     * @return true if the channel can be positioned.
+     */
+    private static boolean isSeekable( FileChannel channel )
+    {
+        try
+        {
+            channel.position();
+            return true;
+        }
+        catch( IOException e )
+        {
+            // "Illegal seek"
+            return false;
+        }
+    }
+
+    /**
+     * Transfers the remainder of a file channel, starting at its current position, to the destination. The
+     * position of the source, and of the destination if it is a file channel, is advanced past the transferred
+     * bytes so that streams sharing the channels continue where the transfer stopped.
+     *
+     * @param progress    the progress tracker, may be null.
+     * @param source      the source channel
+     * @param destination the destination channel
+     *
+     * @return the number of bytes transferred.
+     *
+     * @throws IOException if an IO error occurs
+     */
+    private static long transferTo( StreamProgress progress, FileChannel source, WritableByteChannel destination )
+        throws IOException
+    {
+        long position = source.position();
+        long size = source.size();
+        long count = 0;
+        while( position < size )
+        {
+            long transferred = source.transferTo( position, Math.min( TRANSFER_CHUNK_SIZE, size - position ),
+                                                  destination
+            );
+            if( transferred <= 0 )
+            {
+                break;
+            }
+            position = position + transferred;
+            count = count + transferred;
+            if( null != progress )
+            {
+                progress.update( count );
+            }
+        }
+        source.position( position );
+        return count;
+    }
+
+    /**
+     * Transfers a channel into a file channel, starting at the current position of the file channel, which is
+     * advanced past the transferred bytes.
+     *
+     * @param progress    the progress tracker, may be null.
+     * @param source      the source channel
+     * @param destination the destination channel
+     *
+     * @return the number of bytes transferred.
+     *
+     * @throws IOException if an IO error occurs
+     */
+    private static long transferFrom( StreamProgress progress, ReadableByteChannel source, FileChannel destination )
+        throws IOException
+    {
+        long position = destination.position();
+        long count = 0;
+        long transferred;
+        while( ( transferred = destination.transferFrom( source, position, TRANSFER_CHUNK_SIZE ) ) > 0 )
+        {
+            position = position + transferred;
+            count = count + transferred;
+            destination.position( position );
+            if( null != progress )
             {
-                closeStreams( src, dest );
+                progress.update( count );
             }
-            if( null != monitor )
+        }
+        return count;
+    }
+
+    /**
+     * Copies the remainder of a channel through a direct buffer.
+     *
+     * @param progress    the progress tracker, may be null.
+     * @param expected    the expected size in bytes
+     * @param source      the source channel
+     * @param destination the destination channel
+     * @param count       the number of bytes already copied.
+     *
+     * @return the total number of bytes copied, including the ones already copied.
+     *
+     * @throws IOException if an IO error occurs
+     */
+    private static long copyBuffered( StreamProgress progress, long expected, ReadableByteChannel source,
+                                      WritableByteChannel destination, long count )
+        throws IOException
+    {
+        BufferPool pool = s_bufferPool;
+        ByteBuffer buffer = pool.acquireDirect( bufferSize( expected ) );
+        try
+        {
+            while( source.read( buffer ) >= 0 )
             {
-                monitor.notifyCompletion( sourceURL );
+                buffer.flip();
+                count = count + buffer.remaining();
+                while( buffer.hasRemaining() )
+                {
+                    destination.write( buffer );
+                }
+                buffer.clear();
+                if( null != progress )
+                {
+                    progress.update( count );
+                }
             }
+            return count;
+        }
+        finally
+        {
+            pool.releaseDirect( buffer );
+        }
+    }
+
+    /**
+     * Picks a copy buffer size for the expected number of bytes. Small resources get a buffer that just fits
+     * them, large ones get bigger chunks so that fewer read and write calls are needed.
+     *
+     * @param expected the expected size in bytes, zero or negative if unknown.
+     *
+     * @return the buffer size to use.
+     */
+    static int bufferSize( long expected )
+    {
+        if( expected <= 0 )
+        {
+            return BUFFER_SIZE;
+        }
+        if( expected <= BUFFER_SIZE )
+        {
+            return Math.max( MIN_BUFFER_SIZE, (int) expected );
+        }
+        return (int) Math.min( MAX_BUFFER_SIZE, Math.max( BUFFER_SIZE, expected / 16 ) );
+    }
+
+    /**
+     * Closes the channels and reports Exceptions to System.err
+     *
+     * @param src  The channel to close.
+     * @param dest The channel to close.
+     */
+    private static void closeChannels( ReadableByteChannel src, WritableByteChannel dest )
+    {
+        try
+        {
+            src.close();
+        }
+        catch( IOException e )
+        {
+            e.printStackTrace();
+        }
+
+        try
+        {
+            dest.close();
+        }
+        catch( IOException e )
+        {
+            e.printStackTrace();
         }
     }
 
@@ -176,97 +812,157 @@ public final class StreamUtils
     public static boolean compareStreams( InputStream in1, InputStream in2 )
         throws IOException
     {
-        boolean moreOnIn1;
-        do
+        BufferPool pool = s_bufferPool;
+        byte[] buffer1 = pool.acquire( COMPARE_BUFFER_SIZE );
+        byte[] buffer2 = pool.acquire( COMPARE_BUFFER_SIZE );
+        try
         {
-            int v1 = in1.read();
-            int v2 = in2.read();
-            if( v1 != v2 )
+            int length = Math.min( buffer1.length, buffer2.length );
+            int count1;
+            do
             {
-                return false;
+                count1 = readFully( in1, buffer1, length );
+                int count2 = readFully( in2, buffer2, length );
+                if( count1 != count2 || mismatch( buffer1, buffer2, count1 ) >= 0 )
+                {
+                    return false;
+                }
             }
-            moreOnIn1 = v1 != -1;
+            while( count1 == length );
+            return true;
+        }
+        finally
+        {
+            pool.release( buffer1 );
+            pool.release( buffer2 );
         }
-        while( moreOnIn1 );
-        boolean noMoreOnIn2Either = in2.read() == -1;
-        return noMoreOnIn2Either;
     }
 
     /**
-     * Copies the Reader to the Writer.
+     * Reads from the stream until the requested number of bytes have been read or the end of the stream has been
+     * reached.
      *
-     * @param input  The input characters.
-     * @param output The destination of the characters.
-     * @param close  true if the reader and writer should be closed after the operation is completed.
+     * @param in     The stream to read from.
+     * @param buffer The buffer to read into.
+     * @param length The number of bytes to read.
+     *
+     * @return the number of bytes read, less than length only if the end of the stream has been reached.
      *
      * @throws IOException If an underlying I/O problem occured.
      */
-    public static void copyReaderToWriter( Reader input, Writer output, boolean close )
+    private static int readFully( InputStream in, byte[] buffer, int length )
         throws IOException
     {
-        try
+        int count = 0;
+        while( count < length )
         {
-            BufferedReader in = bufferInput( input );
-            BufferedWriter out = bufferOutput( output );
-            int ch = in.read();
-            while( ch != -1 )
+            int read = in.read( buffer, count, length - count );
+            if( read < 0 )
             {
-                out.write( ch );
-                ch = in.read();
+                break;
             }
-            out.flush();
-            out.close();
+            count = count + read;
         }
-        finally
+        return count;
+    }
+
+    /**
+     * Finds the first index at which two arrays differ. Uses the vectorized <code>Arrays.mismatch</code> when
+     * running on Java 9 or later.
+     *
+     * @param a      The first array.
+     * @param b      The second array.
+     * @param length The number of bytes to compare, starting at index 0 of both arrays.
+     *
+     * @return the index of the first difference, or -1 if the first length bytes are identical.
+     */
+    static int mismatch( byte[] a, byte[] b, int length )
+    {
+        if( MISMATCH != null )
         {
-            if( close )
+            try
             {
-                input.close();
-                output.close();
+                return (int) MISMATCH.invokeExact( a, 0, length, b, 0, length );
+            }
+            catch( RuntimeException e )
+            {
+                throw e;
+            }
+            catch( Error e )
+            {
+                throw e;
+            }
+            catch( Throwable e )
+            {
+                throw new IllegalStateException( e );
             }
         }
+        for( int i = 0; i < length; i++ )
+        {
+            if( a[ i ] != b[ i ] )
+            {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
-     * Wraps the Writer in a BufferedWriter, unless it already is a BufferedWriter.
-     *
-     * @param writer The Writer to check and possibly wrap.
+     * Looks up <code>Arrays.mismatch(byte[], int, int, byte[], int, int)</code>.
      *
-     * @return A BufferedWriter.
+     * @return a handle to the method, or null when running on a JDK older than Java 9.
      */
-    private static BufferedWriter bufferOutput( Writer writer )
+    private static MethodHandle findMismatch()
     {
-        BufferedWriter out;
-        if( writer instanceof BufferedWriter )
+        try
         {
-            out = (BufferedWriter) writer;
+            return MethodHandles.publicLookup().findStatic(
+                Arrays.class, "mismatch",
+                MethodType.methodType( int.class, byte[].class, int.class, int.class, byte[].class, int.class,
+                                       int.class
+                )
+            );
         }
-        else
+        catch( NoSuchMethodException e )
         {
-            out = new BufferedWriter( writer );
+            return null;
+        }
+        catch( IllegalAccessException e )
+        {
+            return null;
         }
-        return out;
     }
 
     /**
-     * Wraps the Reader in a BufferedReaderm unless it already is a BufferedReader.
+     * Copies the Reader to the Writer.
      *
-     * @param reader The Reader to check and possibly wrap.
+     * @param input  The input characters.
+     * @param output The destination of the characters.
+     * @param close  true if the reader and writer should be closed after the operation is completed.
      *
-     * @return A BufferedReader.
+     * @throws IOException If an underlying I/O problem occured.
      */
-    private static BufferedReader bufferInput( Reader reader )
+    public static void copyReaderToWriter( Reader input, Writer output, boolean close )
+        throws IOException
     {
-        BufferedReader in;
-        if( reader instanceof BufferedReader )
+        char[] buffer = new char[CHAR_BUFFER_SIZE];
+        try
         {
-            in = (BufferedReader) reader;
+            int length;
+            while( ( length = input.read( buffer ) ) >= 0 )
+            {
+                output.write( buffer, 0, length );
+            }
+            output.flush();
         }
-        else
+        finally
         {
-            in = new BufferedReader( reader );
+            if( close )
+            {
+                input.close();
+                output.close();
+            }
         }
-        return in;
     }
 
     /**
@@ -302,4 +998,46 @@ public final class StreamUtils
         OutputStreamWriter writer = new OutputStreamWriter( out, encoding );
         copyReaderToWriter( in, writer, close );
     }
+
+    /**
+     * Copies a byte stream to another byte stream, converting the characters from one encoding to another.
+     * Bytes are decoded and encoded chunk by chunk over reusable buffers without going through a Reader or
+     * Writer. If both encodings are the same the bytes are copied unchanged, and if both encodings are ASCII
+     * compatible, chunks that contain only ASCII characters are copied without conversion. Malformed input and
+     * unmappable characters are replaced, just like {@link InputStreamReader} and {@link OutputStreamWriter} do.
+     *
+     * @param in          The input byte stream of data.
+     * @param inEncoding  The encoding used in the input stream.
+     * @param out         The OutputStream to send the converted data to.
+     * @param outEncoding The encoding to use for the output stream.
+     * @param close       true if the streams should be closed after the completion.
+     *
+     * @throws IOException           If an underlying I/O Exception occurs.
+     * @throws NullArgumentException if any of the arguments is null.
+     */
+    public static void transcode( InputStream in, Charset inEncoding, OutputStream out, Charset outEncoding,
+                                  boolean close )
+        throws IOException, NullArgumentException
+    {
+        NullArgumentException.validateNotNull( in, "in" );
+        NullArgumentException.validateNotNull( inEncoding, "inEncoding" );
+        NullArgumentException.validateNotNull( out, "out" );
+        NullArgumentException.validateNotNull( outEncoding, "outEncoding" );
+        if( inEncoding.equals( outEncoding ) )
+        {
+            copyStream( in, out, close );
+            return;
+        }
+        try
+        {
+            new Transcoder( inEncoding, outEncoding, s_bufferPool ).transcode( in, out );
+        }
+        finally
+        {
+            if( close )
+            {
+                closeStreams( in, out );
+            }
+        }
+    }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+/**
+ * How much a file write is forced to the storage device before it is considered complete. Each level trades
+ * throughput for crash safety.
+ */
+public enum SyncPolicy
+{
+
+    /**
+     * Leave flushing to the operating system. Fastest; after a crash a file may be empty or incomplete, even if
+     * it was renamed into place.
+     */
+    NONE,
+
+    /**
+     * Force the content of each file to the device before it is renamed into place. After a crash the file has
+     * either its old or its new content, but the rename itself may be lost.
+     */
+    FILE,
+
+    /**
+     * Like {@link #FILE}, and also force the directories the files were renamed in, so that the renames
+     * survive a crash as well.
+     */
+    FILE_AND_DIRECTORY
+
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ops4j.lang.NullArgumentException;
+
+/**
+ * Pumps one source stream to any number of sinks, for example the output of a process to the console, a log
+ * file and an in-memory tail at the same time. The source is read by one task; every sink has a buffer of its
+ * own that is written by a task of its own, so a sink that is slow for a moment does not hold back the others.
+ * What happens when a sink falls behind by more than its buffer holds is decided by its
+ * {@link Pipe.OverflowPolicy}; by default the source waits for it.
+ * <p>
+ * Sinks can be attached and detached at any time; a sink receives the data read after it was attached. A sink
+ * that fails is detached. The tasks run on the executor of the pumps of {@link Pipe}s.
+ * </p>
+ * Example of usage;
+ * <pre><code>
+ *      Tee tee = new Tee( process.getInputStream() );
+ *      tee.attach( System.out );
+ *      tee.attach( logFile, 1024 * 1024, Pipe.OverflowPolicy.SPILL_TO_DISK, Pipe.FlushPolicy.everyBytes( 65536 ) );
+ *      tee.start( "process output" );
+ * </code></pre>
+ */
+public class Tee
+{
+
+    /**
+     * Default size of the buffer of a sink.
+     */
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private static final int READ_BUF_SIZE = 8192;
+
+    private final InputStream m_source;
+    private final List<Sink> m_sinks = new CopyOnWriteArrayList<Sink>();
+    private boolean m_started;
+    private volatile boolean m_finished;
+
+    /**
+     * Creates a tee for a source stream.
+     *
+     * @param source the stream to read
+     *
+     * @throws NullArgumentException if source is null
+     */
+    public Tee( final InputStream source )
+    {
+        NullArgumentException.validateNotNull( source, "Source" );
+        m_source = source;
+    }
+
+    /**
+     * Attaches a sink with a buffer of the default capacity. When the buffer is full the reading of the source
+     * waits for the sink, and with it all other sinks; nothing is dropped or written to disk. Pass
+     * {@link Pipe.OverflowPolicy#SPILL_TO_DISK} to {@link #attach(OutputStream, int, Pipe.OverflowPolicy,
+     * Pipe.FlushPolicy)} to let a slow sink fall behind instead. The sink is flushed whenever its buffer runs
+     * empty.
+     *
+     * @param out the stream to write to
+     *
+     * @return the attached sink
+     */
+    public Sink attach( final OutputStream out )
+    {
+        return attach( out, DEFAULT_CAPACITY, Pipe.OverflowPolicy.BLOCK, Pipe.FlushPolicy.IMMEDIATE );
+    }
+
+    /**
+     * Attaches a sink.
+     *
+     * @param out         the stream to write to
+     * @param capacity    the size of the buffer of the sink
+     * @param overflow    what to do with data that does not fit into the buffer. With
+     *                    {@link Pipe.OverflowPolicy#BLOCK} this sink holds back the reading of the source, and
+     *                    with it all other sinks.
+     * @param flushPolicy when to flush the sink; it is flushed whenever its buffer runs empty, too
+     *
+     * @return the attached sink
+     *
+     * @throws NullArgumentException if out, overflow or flushPolicy is null
+     */
+    public Sink attach( final OutputStream out, final int capacity, final Pipe.OverflowPolicy overflow,
+                        final Pipe.FlushPolicy flushPolicy )
+    {
+        NullArgumentException.validateNotNull( out, "Output stream" );
+        NullArgumentException.validateNotNull( overflow, "Overflow policy" );
+        NullArgumentException.validateNotNull( flushPolicy, "Flush policy" );
+        final Sink sink = new Sink( out, new RingBuffer( capacity, overflow ), flushPolicy );
+        m_sinks.add( sink );
+        if( m_finished )
+        {
+            // raced with the end of the source
+            sink.m_buffer.close();
+        }
+        Pipe.getPumpExecutor().execute( new Runnable()
+        {
+            public void run()
+            {
+                sink.drain();
+            }
+        }
+        );
+        return sink;
+    }
+
+    /**
+     * Returns the number of attached sinks.
+     *
+     * @return the number of sinks
+     */
+    public int getSinkCount()
+    {
+        return m_sinks.size();
+    }
+
+    /**
+     * Starts reading the source. Reading ends when the source is exhausted or closed; the sinks then get what
+     * is left in their buffers and are detached.
+     *
+     * @param name the name of the thread reading the source
+     *
+     * @return this tee
+     */
+    public synchronized Tee start( final String name )
+    {
+        if( !m_started )
+        {
+            m_started = true;
+            Pipe.LIVE_PUMPS.incrementAndGet();
+            Pipe.getPumpExecutor().execute( new Runnable()
+            {
+                public void run()
+                {
+                    pump( name );
+                }
+            }
+            );
+        }
+        return this;
+    }
+
+    private void pump( final String name )
+    {
+        final Thread thread = Thread.currentThread();
+        final String threadName = thread.getName();
+        thread.setName( name );
+        final BufferPool pool = StreamUtils.getBufferPool();
+        final byte[] buf = pool.acquire( READ_BUF_SIZE );
+        try
+        {
+            int n;
+            while( ( n = m_source.read( buf ) ) != -1 )
+            {
+                for( Sink sink : m_sinks )
+                {
+                    try
+                    {
+                        sink.m_buffer.write( buf, 0, n );
+                    }
+                    catch( final IOException e )
+                    {
+                        // failed or interrupted sink
+                        sink.fail();
+                    }
+                }
+            }
+        }
+        catch( final Exception e )
+        {
+            // closed or broken source
+        }
+        finally
+        {
+            m_finished = true;
+            for( Sink sink : m_sinks )
+            {
+                sink.m_buffer.close();
+            }
+            pool.release( buf );
+            thread.setName( threadName );
+            Pipe.LIVE_PUMPS.decrementAndGet();
+        }
+    }
+
+    /**
+     * A sink attached to a {@link Tee}.
+     */
+    public final class Sink
+    {
+
+        private final OutputStream m_out;
+        private final RingBuffer m_buffer;
+        private final Pipe.FlushPolicy m_flushPolicy;
+        private final AtomicLong m_bytesWritten = new AtomicLong();
+        private volatile IOException m_failure;
+
+        private Sink( final OutputStream out, final RingBuffer buffer, final Pipe.FlushPolicy flushPolicy )
+        {
+            m_out = out;
+            m_buffer = buffer;
+            m_flushPolicy = flushPolicy;
+        }
+
+        /**
+         * Detaches the sink. Data buffered so far is still written to it; the stream is not closed.
+         */
+        public void detach()
+        {
+            m_sinks.remove( this );
+            m_buffer.close();
+        }
+
+        /**
+         * Returns whether the sink is attached.
+         *
+         * @return true if the sink is attached
+         */
+        public boolean isAttached()
+        {
+            return m_sinks.contains( this );
+        }
+
+        /**
+         * Returns the number of bytes written to the sink.
+         *
+         * @return number of bytes written
+         */
+        public long getBytesWritten()
+        {
+            return m_bytesWritten.get();
+        }
+
+        /**
+         * Returns the number of bytes this sink missed because of its overflow policy.
+         *
+         * @return number of dropped bytes
+         */
+        public long getDroppedBytes()
+        {
+            return m_buffer.getDropped();
+        }
+
+        /**
+         * Returns the error that made the sink fail.
+         *
+         * @return the error, or null if the sink did not fail
+         */
+        public IOException getFailure()
+        {
+            return m_failure;
+        }
+
+        private void fail()
+        {
+            m_sinks.remove( this );
+            m_buffer.abort();
+        }
+
+        private void drain()
+        {
+            final BufferPool pool = StreamUtils.getBufferPool();
+            final byte[] buf = pool.acquire( READ_BUF_SIZE );
+            try
+            {
+                long unflushed = 0;
+                long lastFlush = System.nanoTime();
+                int n;
+                while( ( n = m_buffer.read( buf ) ) != -1 )
+                {
+                    m_out.write( buf, 0, n );
+                    m_bytesWritten.addAndGet( n );
+                    unflushed += n;
+                    if( m_flushPolicy.isDue( buf, n, unflushed, lastFlush ) || m_buffer.isEmpty() )
+                    {
+                        m_out.flush();
+                        unflushed = 0;
+                        lastFlush = System.nanoTime();
+                    }
+                }
+            }
+            catch( final IOException e )
+            {
+                m_failure = e;
+                fail();
+            }
+            finally
+            {
+                m_sinks.remove( this );
+                m_buffer.release();
+                pool.release( buf );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts a byte stream from one character encoding to another, see
+ * {@link StreamUtils#transcode(InputStream, Charset, OutputStream, Charset, boolean)}.
+ */
+final class Transcoder
+{
+
+    /**
+     * Size of the byte buffers.
+     */
+    private static final int BUFFER_SIZE = 16384;
+
+    /**
+     * Cache of {@link #isAsciiCompatible(Charset)} results.
+     */
+    private static final Map<Charset, Boolean> ASCII_COMPATIBLE = new ConcurrentHashMap<Charset, Boolean>();
+
+    private final CharsetDecoder m_decoder;
+    private final CharsetEncoder m_encoder;
+    private final boolean m_passThrough;
+    private final BufferPool m_pool;
+
+    /**
+     * Constructor.
+     *
+     * @param inEncoding  encoding of the input
+     * @param outEncoding encoding of the output
+     * @param pool        pool to take the byte buffers from
+     */
+    Transcoder( final Charset inEncoding, final Charset outEncoding, final BufferPool pool )
+    {
+        m_decoder = inEncoding.newDecoder()
+            .onMalformedInput( CodingErrorAction.REPLACE )
+            .onUnmappableCharacter( CodingErrorAction.REPLACE );
+        m_encoder = outEncoding.newEncoder()
+            .onMalformedInput( CodingErrorAction.REPLACE )
+            .onUnmappableCharacter( CodingErrorAction.REPLACE );
+        m_passThrough = isAsciiCompatible( inEncoding ) && isAsciiCompatible( outEncoding );
+        m_pool = pool;
+    }
+
+    /**
+     * Converts the input stream to the output stream. The streams are not closed.
+     *
+     * @param in  the input
+     * @param out the output
+     *
+     * @throws IOException If an underlying I/O Exception occurs.
+     */
+    void transcode( final InputStream in, final OutputStream out )
+        throws IOException
+    {
+        byte[] inBytes = m_pool.acquire( BUFFER_SIZE );
+        byte[] outBytes = m_pool.acquire( BUFFER_SIZE );
+        try
+        {
+            ByteBuffer input = ByteBuffer.wrap( inBytes );
+            ByteBuffer output = ByteBuffer.wrap( outBytes );
+            CharBuffer chars = CharBuffer.allocate( inBytes.length );
+            boolean endOfInput = false;
+            while( !endOfInput )
+            {
+                int read = in.read( inBytes, input.position(), input.remaining() );
+                endOfInput = read < 0;
+                if( read > 0 )
+                {
+                    input.position( input.position() + read );
+                }
+                input.flip();
+                if( !endOfInput && m_passThrough && chars.position() == 0
+                    && isAscii( inBytes, input.position(), input.limit() ) )
+                {
+                    // nothing pending in the coders and the chunk means the same in both encodings
+                    out.write( inBytes, input.position(), input.remaining() );
+                    input.clear();
+                    continue;
+                }
+                CoderResult result;
+                do
+                {
+                    result = m_decoder.decode( input, chars, endOfInput );
+                    encode( chars, output, out, endOfInput );
+                }
+                while( result.isOverflow() );
+                input.compact();
+            }
+            CoderResult result;
+            do
+            {
+                result = m_decoder.flush( chars );
+                encode( chars, output, out, true );
+            }
+            while( result.isOverflow() );
+            do
+            {
+                result = m_encoder.flush( output );
+                write( output, out );
+            }
+            while( result.isOverflow() );
+        }
+        finally
+        {
+            m_pool.release( inBytes );
+            m_pool.release( outBytes );
+        }
+    }
+
+    /**
+     * Encodes the decoded characters and writes the result. Characters that cannot be encoded yet, such as a
+     * lone high surrogate, are kept in the buffer.
+     *
+     * @param chars      decoded characters, in fill mode
+     * @param output     buffer for the encoded bytes
+     * @param out        the output stream
+     * @param endOfInput true if no more characters will follow
+     *
+     * @throws IOException If an underlying I/O Exception occurs.
+     */
+    private void encode( final CharBuffer chars, final ByteBuffer output, final OutputStream out,
+                         final boolean endOfInput )
+        throws IOException
+    {
+        chars.flip();
+        CoderResult result;
+        do
+        {
+            result = m_encoder.encode( chars, output, endOfInput );
+            write( output, out );
+        }
+        while( result.isOverflow() );
+        chars.compact();
+    }
+
+    /**
+     * Writes out and clears the encoded bytes.
+     *
+     * @param output buffer of encoded bytes, in fill mode
+     * @param out    the output stream
+     *
+     * @throws IOException If an underlying I/O Exception occurs.
+     */
+    private static void write( final ByteBuffer output, final OutputStream out )
+        throws IOException
+    {
+        if( output.position() > 0 )
+        {
+            out.write( output.array(), 0, output.position() );
+            output.clear();
+        }
+    }
+
+    /**
+     * Checks if a range of bytes consists of ASCII characters only.
+     *
+     * @param bytes the bytes
+     * @param from  start index, inclusive
+     * @param to    end index, exclusive
+     *
+     * @return true if all bytes are in the range 0 to 127.
+     */
+    private static boolean isAscii( final byte[] bytes, final int from, final int to )
+    {
+        for( int i = from; i < to; i++ )
+        {
+            if( bytes[ i ] < 0 )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a character set encodes the ASCII characters as the same single bytes ASCII does, and decodes
+     * those bytes back to the same characters.
+     *
+     * @param charset the character set to check
+     *
+     * @return true if ASCII text means the same in the character set and in ASCII.
+     */
+    static boolean isAsciiCompatible( final Charset charset )
+    {
+        Boolean compatible = ASCII_COMPATIBLE.get( charset );
+        if( compatible == null )
+        {
+            byte[] ascii = new byte[128];
+            for( int i = 0; i < ascii.length; i++ )
+            {
+                ascii[ i ] = (byte) i;
+            }
+            compatible = Boolean.FALSE;
+            if( charset.canEncode() )
+            {
+                String text = new String( ascii, Charset.forName( "US-ASCII" ) );
+                compatible = text.equals( new String( ascii, charset ) )
+                             && Arrays.equals( ascii, text.getBytes( charset ) );
+            }
+            ASCII_COMPATIBLE.put( charset, compatible );
+        }
+        return compatible;
+    }
+
+}
@@ -12,19 +12,44 @@
 
 package org.ops4j.io;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.ops4j.monitors.stream.StreamMonitor;
+import org.ops4j.monitors.stream.StreamProgress;
 
 /**
  * class for exploding jar/zip files onto the file system
@@ -100,6 +125,165 @@ public class ZipExploder {
         this.sortNames = sortNames;
     }
 
+    protected boolean incremental;
+
+    /**
+     * Get the incremental mode state.
+     * 
+     * @return <code>true</code> if unchanged entries are skipped
+     */
+    public boolean getIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Set the incremental mode state. In incremental mode a manifest of the
+     * extracted entries is kept in the destination directory (see
+     * {@link #getManifestFile(File, File)}). An entry is skipped if its size,
+     * CRC-32 and time match the manifest and the file on disk still has the
+     * size and modification time it got when it was extracted. Extracted files
+     * get the time of their entry as modification time.
+     * 
+     * @param incremental
+     *            set to <code>true</code> to skip unchanged entries
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    protected boolean pruneStale;
+
+    /**
+     * Get the prune mode state.
+     * 
+     * @return <code>true</code> if stale files are deleted
+     */
+    public boolean getPruneStale() {
+        return pruneStale;
+    }
+
+    /**
+     * Set the prune mode state. In incremental mode, files that were extracted
+     * from an earlier version of an archive but are no longer in it are
+     * deleted. Files the archive never contained are left alone.
+     * 
+     * @param pruneStale
+     *            set to <code>true</code> to delete stale files
+     */
+    public void setPruneStale(boolean pruneStale) {
+        this.pruneStale = pruneStale;
+    }
+
+    protected Pattern[] includes = new Pattern[0];
+
+    /**
+     * Get the filters of the entries to extract.
+     * 
+     * @return the include filters
+     */
+    public Pattern[] getIncludes() {
+        return includes;
+    }
+
+    /**
+     * Set the filters of the entries to extract, for example
+     * <code>ListerUtils.parseFilter("META-INF/**")</code>. An entry is
+     * extracted if its name matches one of the filters, or if there are none.
+     * Entries of archive files that are not extracted are never inflated.
+     * 
+     * @param includes
+     *            the include filters, see {@link ListerUtils#parseFilter(String)}
+     */
+    public void setIncludes(Pattern... includes) {
+        this.includes = includes == null ? new Pattern[0] : includes;
+    }
+
+    protected Pattern[] excludes = new Pattern[0];
+
+    /**
+     * Get the filters of the entries not to extract.
+     * 
+     * @return the exclude filters
+     */
+    public Pattern[] getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * Set the filters of the entries not to extract. An entry matching one of
+     * them is skipped, even if it matches an include filter.
+     * 
+     * @param excludes
+     *            the exclude filters, see {@link ListerUtils#parseFilter(String)}
+     */
+    public void setExcludes(Pattern... excludes) {
+        this.excludes = excludes == null ? new Pattern[0] : excludes;
+    }
+
+    protected int maxEntries = -1;
+
+    /**
+     * Get the maximum number of files extracted from one archive.
+     * 
+     * @return the maximum, or -1 for no limit
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Set the maximum number of files extracted from one archive. Extraction
+     * stops once that many files passed the filters, so when looking for a
+     * known set of entries, the rest of the archive is not looked at. Of a
+     * stream only the part up to the last wanted entry is read. Directory
+     * entries do not count.
+     * 
+     * @param maxEntries
+     *            the maximum, or -1 for no limit
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    protected int parallelism = 1;
+
+    /** Whether entries have to go through a copyFileEntry method of a subclass. */
+    private final boolean copyFileEntryOverridden = overridesCopyFileEntry(getClass());
+
+    /** Destination of the extraction running on a thread. */
+    private final ThreadLocal<Destination> current = new ThreadLocal<Destination>();
+
+    /**
+     * Get the number of threads extracting the entries of one archive.
+     * 
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of threads extracting the entries of one archive. With
+     * more than one thread every thread reads the archive through a
+     * {@link ZipFile} of its own, and all directories are created before the
+     * files are extracted. Inflating is CPU-bound, so the number of available
+     * processors is a good choice for large archives. Default is 1, which
+     * extracts the entries on the calling thread. Subclasses that override a
+     * copyFileEntry method always extract on the calling thread, so that
+     * every entry goes through their method.
+     * 
+     * @param parallelism
+     *            the number of threads, including the calling thread
+     * @throws IllegalArgumentException
+     *             if parallelism is less than 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1");
+        }
+        this.parallelism = parallelism;
+    }
+
     /**
      * Explode source JAR and/or ZIP files into a target directory
      * 
@@ -239,16 +423,33 @@ public class ZipExploder {
         ZipFile f = null;
         try {
             f = new ZipFile(zipFile);
-            Map<String, ZipEntry> fEntries = getEntries(f);
-            String[] names = fEntries.keySet().toArray(new String[] {});
-            if (sortNames) {
-                Arrays.sort(names);
+            Destination destination = new Destination(destDir);
+            current.set(destination);
+            List<ZipEntry> all = listEntries(f);
+            List<ZipEntry> entries = selectEntries(all);
+            File manifestFile = null;
+            ExplodeManifest manifest = null;
+            Set<String> stale = null;
+            if (incremental) {
+                manifestFile = getManifestFile(zipFile, destDir);
+                manifest = ExplodeManifest.load(manifestFile);
+                stale = manifest.retain(getNames(all));
+                entries = skipUnchanged(entries, destDir, manifest);
             }
-            // copy all files
-            for (int i = 0; i < names.length; i++) {
-                String name = names[i];
-                ZipEntry e = fEntries.get(name);
-                copyFileEntry(destDir, f, e);
+            if (parallelism > 1 && entries.size() > 1 && !copyFileEntryOverridden) {
+                copyEntriesInParallel(zipFile, f, entries, destination);
+            } else {
+                // copy all files
+                for (ZipEntry e : entries) {
+                    copyFileEntry(destDir, f, e);
+                }
+            }
+            if (incremental) {
+                recordExtracted(entries, destDir, manifest);
+                if (pruneStale) {
+                    pruneStale(stale, destination);
+                }
+                manifest.store(manifestFile);
             }
         } catch (IOException ioe) {
             String msg = ioe.getMessage();
@@ -257,6 +458,7 @@ public class ZipExploder {
             }
             throw new IOException(msg);
         } finally {
+            current.remove();
             if (f != null) {
                 try {
                     f.close();
@@ -266,7 +468,303 @@ public class ZipExploder {
         }
     }
 
-    /** Get all the entries in a ZIP file. */
+    /**
+     * Explode a ZIP or JAR archive downloaded from a URL into a target
+     * directory, without storing the archive. See
+     * {@link #processStream(InputStream, File, StreamProgress)}.
+     * 
+     * @param url
+     *            location of the archive
+     * @param destDir
+     *            target directory (should already exist)
+     * @param monitor
+     *            monitor of the download, may be <code>null</code>
+     * @exception IOException
+     *                error reading the archive or creating a target file
+     */
+    public void processURL(URL url, File destDir, StreamMonitor monitor) throws IOException {
+        URLConnection connection = url.openConnection();
+        InputStream in = connection.getInputStream();
+        StreamProgress progress = monitor == null ? null : new StreamProgress(monitor, url, connection.getContentLengthLong());
+        processStream(in, destDir, progress);
+    }
+
+    /**
+     * Explode a ZIP or JAR archive read from a stream into a target directory.
+     * See {@link #processStream(InputStream, File, StreamProgress)}.
+     * 
+     * @param in
+     *            the archive, closed when done
+     * @param destDir
+     *            target directory (should already exist)
+     * @exception IOException
+     *                error reading the archive or creating a target file
+     */
+    public void processStream(InputStream in, File destDir) throws IOException {
+        processStream(in, destDir, null);
+    }
+
+    /**
+     * Explode a ZIP or JAR archive read from a stream into a target directory.
+     * The entries are extracted in archive order as the bytes arrive. A
+     * separate thread reads ahead of the extraction, so reading the stream
+     * overlaps with inflating and writing. Entries are checked for zip slip
+     * like those of archive files, and filtered the same way; entries that are
+     * filtered out still have to be read past. Sorting, incremental mode and
+     * parallelism only apply to archive files and are ignored here.
+     * 
+     * @param in
+     *            the archive, closed when done
+     * @param destDir
+     *            target directory (should already exist)
+     * @param progress
+     *            receives the number of archive bytes read, may be
+     *            <code>null</code>
+     * @exception IOException
+     *                error reading the archive or creating a target file
+     */
+    public void processStream(InputStream in, File destDir, StreamProgress progress) throws IOException {
+        if (!destDir.exists()) {
+            in.close();
+            throw new IOException("Destination directory '" + destDir + "' does not exist, or can't be read!");
+        }
+        ReadAhead readAhead = new ReadAhead(in, progress);
+        Pipe.getPumpExecutor().execute(readAhead);
+        try {
+            current.set(new Destination(destDir));
+            final ZipInputStream zis = new ZipInputStream(readAhead);
+            // copyFileEntry closes the stream it is given, but the next entry
+            // comes from the same stream
+            InputStream entryStream = new FilterInputStream(zis) {
+                @Override
+                public void close() {
+                }
+            };
+            int files = 0;
+            ZipEntry ze;
+            while ((maxEntries < 0 || files < maxEntries) && (ze = zis.getNextEntry()) != null) {
+                if (isIncluded(ze.getName())) {
+                    copyFileEntry(destDir, ze.isDirectory(), ze.getName(), entryStream);
+                    if (!ze.isDirectory()) {
+                        files++;
+                    }
+                }
+            }
+            if (maxEntries < 0 || files < maxEntries) {
+                // read the central directory, to complete the progress
+                byte[] skip = new byte[8192];
+                while (readAhead.read(skip, 0, skip.length) != -1) {
+                }
+            }
+        } catch (IOException ioe) {
+            if (progress != null) {
+                progress.error(ioe.getMessage());
+            }
+            throw ioe;
+        } finally {
+            current.remove();
+            readAhead.close();
+        }
+    }
+
+    /**
+     * Get the manifest used in incremental mode for an archive. It is a hidden
+     * file named after the archive in the destination directory.
+     * 
+     * @param zipFile
+     *            source file
+     * @param destDir
+     *            target directory
+     * @return the manifest file
+     */
+    protected File getManifestFile(File zipFile, File destDir) {
+        return new File(destDir, ".zipexploder-" + zipFile.getName() + ".manifest");
+    }
+
+    /** Remove the entries that are unchanged according to the manifest from a list. */
+    private static List<ZipEntry> skipUnchanged(List<ZipEntry> entries, File destDir, ExplodeManifest manifest) {
+        List<ZipEntry> changed = new ArrayList<ZipEntry>(entries.size());
+        for (ZipEntry ze : entries) {
+            if (ze.isDirectory() || !manifest.isUnchanged(ze, new File(destDir, ze.getName()))) {
+                changed.add(ze);
+            }
+        }
+        return changed;
+    }
+
+    private static Set<String> getNames(List<ZipEntry> entries) {
+        Set<String> names = new HashSet<String>();
+        for (ZipEntry ze : entries) {
+            names.add(ze.getName());
+        }
+        return names;
+    }
+
+    /** Stamp the extracted files with the time of their entries and record them. */
+    private static void recordExtracted(List<ZipEntry> entries, File destDir, ExplodeManifest current) {
+        for (ZipEntry ze : entries) {
+            if (!ze.isDirectory()) {
+                File outFile = new File(destDir, ze.getName());
+                if (ze.getTime() != -1) {
+                    outFile.setLastModified(ze.getTime());
+                }
+                current.record(ze, outFile);
+            }
+        }
+    }
+
+    /** Delete files of the previous manifest that are not in the archive any more. */
+    private static void pruneStale(Set<String> names, Destination destination) throws IOException {
+        for (String name : names) {
+            destination.resolve(name, false).toFile().delete();
+        }
+    }
+
+    /**
+     * Check whether an entry passes the include and exclude filters.
+     * 
+     * @param name
+     *            name of the entry
+     * @return <code>true</code> if the entry is extracted
+     */
+    protected boolean isIncluded(String name) {
+        return ListerUtils.isIncluded(name, includes, excludes);
+    }
+
+    /** Apply the filters and the maximum number of files to a list of entries. */
+    private List<ZipEntry> selectEntries(List<ZipEntry> entries) {
+        if (includes.length == 0 && excludes.length == 0 && maxEntries < 0) {
+            return entries;
+        }
+        List<ZipEntry> selected = new ArrayList<ZipEntry>();
+        int files = 0;
+        for (ZipEntry ze : entries) {
+            if (maxEntries >= 0 && files >= maxEntries) {
+                break;
+            }
+            if (isIncluded(ze.getName())) {
+                selected.add(ze);
+                if (!ze.isDirectory()) {
+                    files++;
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Get all the entries in a ZIP file, in the order they are extracted:
+     * sorted by name if {@link #getSortNames()} is set, in archive order
+     * otherwise.
+     */
+    protected List<ZipEntry> listEntries(ZipFile zf) {
+        List<ZipEntry> entries = new ArrayList<ZipEntry>(zf.size());
+        Enumeration<? extends ZipEntry> e = zf.entries();
+        while (e.hasMoreElements()) {
+            entries.add(e.nextElement());
+        }
+        if (sortNames) {
+            Collections.sort(entries, new Comparator<ZipEntry>() {
+                public int compare(ZipEntry a, ZipEntry b) {
+                    return a.getName().compareTo(b.getName());
+                }
+            });
+        }
+        return entries;
+    }
+
+    /**
+     * Extract the entries of an archive with several threads. All entries are
+     * checked and all directories are created up front, so the workers only
+     * write files. The calling thread is one of the workers and reads through
+     * the already open archive; the others open the archive once each.
+     */
+    private void copyEntriesInParallel(final File zipFile, ZipFile zf, List<ZipEntry> entries, final Destination destination) throws IOException {
+        final List<ZipEntry> files = new ArrayList<ZipEntry>(entries.size());
+        final List<Path> targets = new ArrayList<Path>(entries.size());
+        for (ZipEntry ze : entries) {
+            Path target = destination.resolve(ze.getName(), ze.isDirectory());
+            if (ze.isDirectory()) {
+                destination.createDirectories(target);
+            } else {
+                destination.createDirectories(target.getParent());
+                files.add(ze);
+                targets.add(target);
+            }
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(parallelism, files.size());
+        ExecutorService executor = IOExecutors.newIOExecutor("ZipExploder", Math.max(1, workers - 1));
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 1; i < workers; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        ZipFile own = new ZipFile(zipFile);
+                        try {
+                            copyFiles(own, files, targets, next, destination);
+                        } finally {
+                            own.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            IOException failure = null;
+            try {
+                copyFiles(zf, files, targets, next, destination);
+            } catch (IOException e) {
+                failure = e;
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new HierarchicalIOException(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HierarchicalIOException("Interrupted while exploding " + zipFile, e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Extract file entries until all of them have been claimed. */
+    private static void copyFiles(ZipFile zf, List<ZipEntry> files, List<Path> targets, AtomicInteger next, Destination destination) throws IOException {
+        int i;
+        while ((i = next.getAndIncrement()) < files.size()) {
+            ZipEntry ze = files.get(i);
+            InputStream dis = zf.getInputStream(ze);
+            try {
+                destination.write(targets.get(i), ze.getSize(), dis);
+            } catch (IOException e) {
+                // make the other workers stop early
+                next.set(files.size());
+                throw e;
+            } finally {
+                try {
+                    dis.close();
+                } catch (IOException ioe) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Get all the entries in a ZIP file.
+     * 
+     * @deprecated no longer used for extracting, see
+     *             {@link #listEntries(ZipFile)}
+     */
+    @Deprecated
     protected Map<String, ZipEntry> getEntries(ZipFile zf) {
         Enumeration<?> e = zf.entries();
         Map<String, ZipEntry> m = new HashMap<String, ZipEntry>();
@@ -302,9 +800,13 @@ public class ZipExploder {
      * @throws IOException
      */
     public void copyFileEntry(File destDir, ZipFile zf, ZipEntry ze) throws IOException {
-        BufferedInputStream dis = new BufferedInputStream(zf.getInputStream(ze));
+        InputStream dis = zf.getInputStream(ze);
         try {
-            copyFileEntry(destDir, ze.isDirectory(), ze.getName(), dis);
+            if (copyFileEntryOverridden) {
+                copyFileEntry(destDir, ze.isDirectory(), ze.getName(), dis);
+            } else {
+                copyFileEntry(destinationFor(destDir), ze.isDirectory(), ze.getName(), ze.getSize(), dis);
+            }
         } finally {
             try {
                 dis.close();
@@ -313,25 +815,64 @@ public class ZipExploder {
         }
     }
 
+    /**
+     * copy a single entry of unknown size, as read from a stream. Entries of
+     * archive files only come here if a subclass overrides this method;
+     * otherwise they take a faster way that knows the size of the entry.
+     * 
+     * @param destDir
+     * @param destIsDir
+     * @param destFileName
+     * @param dis
+     *            the content of the entry, closed when done
+     * @throws IOException
+     */
     protected void copyFileEntry(File destDir, boolean destIsDir, String destFileName, InputStream dis) throws IOException {
-        File outFile = new File(destDir, destFileName);
-        if (!outFile.getCanonicalPath().startsWith(destDir.getCanonicalPath())) {
-            throw new IOException("The output file is not contained in the destination directory");
+        try {
+            copyFileEntry(destinationFor(destDir), destIsDir, destFileName, -1, dis);
+        } finally {
+            dis.close();
         }
+    }
 
-        File file = new File(destFileName);
-        String parent = file.getParent();
-        if (parent != null && parent.length() > 0) {
-            File dir = new File(destDir, parent);
-            if (dir != null) {
-                dir.mkdirs();
-            }
-        }
+    private static void copyFileEntry(Destination destination, boolean destIsDir, String destFileName, long size, InputStream dis) throws IOException {
+        Path target = destination.resolve(destFileName, destIsDir);
         if (destIsDir) {
-            outFile.mkdir();
+            destination.createDirectories(target);
         } else {
-            StreamUtils.copyStream(dis, new FileOutputStream(outFile), true);
+            destination.createDirectories(target.getParent());
+            destination.write(target, size, dis);
+        }
+    }
+
+    /**
+     * Whether a subclass overrides one of the copyFileEntry methods entries
+     * of archive files go through. Extraction then takes the way through
+     * these methods instead of the faster one that knows the entry size.
+     */
+    private static boolean overridesCopyFileEntry(Class<?> type) {
+        for (Class<?> c = type; c != ZipExploder.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("copyFileEntry", File.class, ZipFile.class, ZipEntry.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+            }
+            try {
+                c.getDeclaredMethod("copyFileEntry", File.class, boolean.class, String.class, InputStream.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+            }
         }
+        return false;
+    }
+
+    /**
+     * The destination of the running extraction on this thread, or a new one
+     * when a copyFileEntry method is called on its own.
+     */
+    private Destination destinationFor(File destDir) throws IOException {
+        Destination destination = current.get();
+        return destination != null && destination.dir.equals(destDir) ? destination : new Destination(destDir);
     }
 
     protected void print(String s) {
@@ -423,4 +964,180 @@ public class ZipExploder {
             System.exit(2);
         }
     }
+
+    /**
+     * The destination directory of one extraction. Entry names are resolved
+     * against the real path of the directory, which is computed only once, and
+     * directories are created only once. A directory is checked not to lead
+     * outside the destination when it is created, and files are opened without
+     * following links, so no entry can be written outside the destination.
+     */
+    private static final class Destination {
+
+        private static final int MAX_BUFFER = 128 * 1024;
+
+        private static final Set<OpenOption> WRITE = new HashSet<OpenOption>(Arrays.asList(StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, LinkOption.NOFOLLOW_LINKS));
+
+        final File dir;
+        private final Path path;
+        private final Set<Path> created = Collections.newSetFromMap(new ConcurrentHashMap<Path, Boolean>());
+
+        Destination(File dir) throws IOException {
+            this.dir = dir;
+            this.path = dir.toPath().toRealPath();
+            created.add(path);
+        }
+
+        /**
+         * Resolve an entry name, refusing names that lead outside (zip slip),
+         * and file names that lead to the destination itself.
+         */
+        Path resolve(String name, boolean directory) throws IOException {
+            Path target;
+            try {
+                target = path.resolve(name).normalize();
+            } catch (InvalidPathException e) {
+                throw new HierarchicalIOException("Invalid entry name " + name, e);
+            }
+            if (!target.startsWith(path)) {
+                throw new IOException("The output file is not contained in the destination directory");
+            }
+            if (!directory && target.equals(path)) {
+                throw new IOException("Invalid entry name " + name);
+            }
+            return target;
+        }
+
+        /**
+         * Create a directory and its missing parents one level at a time,
+         * checking each level before anything is created inside it, so a link
+         * in the destination cannot make directories appear outside of it.
+         */
+        void createDirectories(Path directory) throws IOException {
+            if (created.contains(directory)) {
+                return;
+            }
+            if (!directory.startsWith(path)) {
+                throw new IOException("The output file is not contained in the destination directory");
+            }
+            createDirectories(directory.getParent());
+            try {
+                Files.createDirectory(directory);
+            } catch (FileAlreadyExistsException e) {
+                // an existing directory, or a link that is checked below
+                if (!Files.isDirectory(directory)) {
+                    throw e;
+                }
+            }
+            if (!directory.toRealPath().startsWith(path)) {
+                throw new IOException("The output file is not contained in the destination directory");
+            }
+            created.add(directory);
+        }
+
+        /**
+         * Write an entry to a file. The inflater hands out small pieces, so the
+         * buffer, sized to the entry if it is known, is filled before it is
+         * written to the channel.
+         */
+        void write(Path target, long size, InputStream in) throws IOException {
+            BufferPool pool = StreamUtils.getBufferPool();
+            byte[] buf = pool.acquire(size >= 0 && size < MAX_BUFFER ? Math.max(1, (int) size) : MAX_BUFFER);
+            try {
+                FileChannel out = FileChannel.open(target, WRITE);
+                try {
+                    int filled = 0;
+                    int n;
+                    while ((n = in.read(buf, filled, buf.length - filled)) != -1) {
+                        filled += n;
+                        if (filled == buf.length) {
+                            writeFully(out, buf, filled);
+                            filled = 0;
+                        }
+                    }
+                    writeFully(out, buf, filled);
+                } finally {
+                    out.close();
+                }
+            } finally {
+                pool.release(buf);
+            }
+        }
+
+        private static void writeFully(FileChannel out, byte[] buf, int length) throws IOException {
+            ByteBuffer bb = ByteBuffer.wrap(buf, 0, length);
+            while (bb.hasRemaining()) {
+                out.write(bb);
+            }
+        }
+    }
+
+    /**
+     * Reads a stream into a buffer on a thread of its own, and hands out the
+     * buffered data.
+     */
+    private static class ReadAhead extends InputStream implements Runnable {
+
+        private static final int CAPACITY = 1024 * 1024;
+
+        private final InputStream source;
+        private final StreamProgress progress;
+        private final RingBuffer buffer = new RingBuffer(CAPACITY, Pipe.OverflowPolicy.BLOCK);
+        private volatile IOException failure;
+
+        ReadAhead(InputStream source, StreamProgress progress) {
+            this.source = source;
+            this.progress = progress;
+        }
+
+        public void run() {
+            BufferPool pool = StreamUtils.getBufferPool();
+            byte[] buf = pool.acquire(64 * 1024);
+            try {
+                long count = 0;
+                int n;
+                while ((n = source.read(buf)) != -1) {
+                    buffer.write(buf, 0, n);
+                    count += n;
+                    if (progress != null) {
+                        progress.update(count);
+                    }
+                }
+                if (progress != null) {
+                    progress.complete(count);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                buffer.close();
+                pool.release(buf);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n = buffer.read(b, off, len);
+            if (n == -1 && failure != null) {
+                throw failure;
+            }
+            return n;
+        }
+
+        /** Stop reading ahead and close the source. */
+        @Override
+        public void close() throws IOException {
+            buffer.abort();
+            source.close();
+        }
+    }
 }
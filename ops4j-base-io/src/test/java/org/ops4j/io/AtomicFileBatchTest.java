@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AtomicFileBatchTest
+{
+
+    private File m_dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_dir = Files.createTempDirectory( "atomicbatch" ).toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtils.delete( m_dir );
+    }
+
+    @Test
+    public void keepsUsualPermissions() throws IOException
+    {
+        Assume.assumeTrue( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) );
+        File plain = write( "plain", "plain" );
+        File replaced = write( "replaced", "old content" );
+        Files.setPosixFilePermissions( replaced.toPath(), PosixFilePermissions.fromString( "rw-r-----" ) );
+        File created = new File( m_dir, "created" );
+        AtomicFileBatch batch = new AtomicFileBatch( SyncPolicy.NONE );
+        try
+        {
+            batch.create( created ).close();
+            batch.create( replaced ).close();
+            batch.commit();
+        }
+        finally
+        {
+            batch.close();
+        }
+        assertEquals(
+            Files.getPosixFilePermissions( plain.toPath() ), Files.getPosixFilePermissions( created.toPath() )
+        );
+        assertEquals( "rw-r-----", PosixFilePermissions.toString( Files.getPosixFilePermissions( replaced.toPath() ) ) );
+    }
+
+    @Test
+    public void commitRenamesIntoPlace() throws IOException
+    {
+        File source = write( "source", "new content" );
+        File replaced = write( "replaced", "old content" );
+        File created = new File( m_dir, "created" );
+        AtomicFileBatch batch = new AtomicFileBatch( SyncPolicy.FILE_AND_DIRECTORY );
+        try
+        {
+            batch.copy( source, replaced, null );
+            OutputStream out = batch.create( created );
+            out.write( "streamed".getBytes( "UTF-8" ) );
+            out.close();
+
+            // nothing is visible before the commit
+            assertEquals( "old content", read( replaced ) );
+            assertFalse( created.exists() );
+
+            batch.commit();
+        }
+        finally
+        {
+            batch.close();
+        }
+        assertEquals( "new content", read( replaced ) );
+        assertEquals( "streamed", read( created ) );
+        assertArrayEquals( new String[]{ "created", "replaced", "source" }, sortedNames() );
+    }
+
+    @Test
+    public void closeWithoutCommitDiscards() throws IOException
+    {
+        File target = write( "target", "old content" );
+        AtomicFileBatch batch = new AtomicFileBatch( SyncPolicy.NONE );
+        OutputStream out = batch.create( target );
+        out.write( 42 );
+        out.close();
+        OutputStream open = batch.create( new File( m_dir, "open" ) );
+        open.write( 43 );
+        batch.close();
+        open.close();
+
+        assertEquals( "old content", read( target ) );
+        assertArrayEquals( new String[]{ "target" }, sortedNames() );
+    }
+
+    @Test
+    public void unclosedStreamsAreNotCommitted() throws IOException
+    {
+        File target = new File( m_dir, "target" );
+        AtomicFileBatch batch = new AtomicFileBatch( SyncPolicy.FILE );
+        OutputStream out = batch.create( target );
+        out.write( 42 );
+        batch.commit();
+        assertFalse( target.exists() );
+        out.close();
+        batch.commit();
+        assertTrue( target.exists() );
+        batch.close();
+        assertArrayEquals( new String[]{ "target" }, sortedNames() );
+    }
+
+    @Test
+    public void copyFileWithSyncPolicy() throws IOException
+    {
+        File source = write( "source", "new content" );
+        File target = write( "target", "old content" );
+        FileUtils.copyFile( source, target, null, SyncPolicy.FILE_AND_DIRECTORY );
+        assertEquals( "new content", read( target ) );
+        assertArrayEquals( new String[]{ "source", "target" }, sortedNames() );
+    }
+
+    private File write( String name, String content ) throws IOException
+    {
+        File file = new File( m_dir, name );
+        Files.write( file.toPath(), content.getBytes( "UTF-8" ) );
+        return file;
+    }
+
+    private static String read( File file ) throws IOException
+    {
+        return new String( Files.readAllBytes( file.toPath() ), "UTF-8" );
+    }
+
+    private String[] sortedNames()
+    {
+        String[] names = m_dir.list();
+        Arrays.sort( names );
+        return names;
+    }
+
+}
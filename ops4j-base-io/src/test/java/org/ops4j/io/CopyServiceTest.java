@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.ops4j.monitors.stream.StreamMonitor;
+
+public class CopyServiceTest
+{
+
+    private File m_dir;
+    private CopyService m_service;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_dir = Files.createTempDirectory( "copyservice" ).toFile();
+        m_service = new CopyService( 3 );
+    }
+
+    @After
+    public void tearDown()
+    {
+        m_service.shutdown();
+        FileUtils.delete( m_dir );
+    }
+
+    @Test
+    public void copyBatch() throws IOException
+    {
+        List<CopyJob> jobs = new ArrayList<CopyJob>();
+        long expected = 0;
+        for( int i = 0; i < 20; i++ )
+        {
+            byte[] data = new byte[1000 * i];
+            new Random( i ).nextBytes( data );
+            File source = new File( m_dir, "source" + i );
+            Files.write( source.toPath(), data );
+            jobs.add( new CopyJob( source, new File( m_dir, "target/" + i ) ) );
+            expected += data.length;
+        }
+        URL zipEntry = new URL( "jar:" + FileUtils.getFileFromClasspath( "dirscanner.zip" ).toURI()
+                                + "!/bundle1.jar" );
+        jobs.add( new CopyJob( zipEntry, new File( m_dir, "target/bundle1.jar" ) ) );
+
+        RecordingMonitor monitor = new RecordingMonitor();
+        long copied = m_service.copyAll( jobs, monitor );
+
+        File bundle = FileUtils.getFileFromClasspath( "dirscanner/bundle1.jar" );
+        assertEquals( expected + bundle.length(), copied );
+        for( int i = 0; i < 20; i++ )
+        {
+            assertTrue( FileUtils.compareFiles( new File( m_dir, "source" + i ).toPath(),
+                                                new File( m_dir, "target/" + i ).toPath() ) );
+        }
+        assertEquals( 21, monitor.m_completed.size() );
+        assertEquals( 21, m_service.getCompletedJobs() );
+        assertEquals( copied, m_service.getBytesCopied() );
+        assertEquals( 0, m_service.getInFlight() );
+    }
+
+    @Test
+    public void failureIsReported() throws IOException
+    {
+        List<CopyJob> jobs = new ArrayList<CopyJob>();
+        jobs.add( new CopyJob( new File( m_dir, "missing" ), new File( m_dir, "target" ) ) );
+        RecordingMonitor monitor = new RecordingMonitor();
+        try
+        {
+            m_service.copyAll( jobs, monitor );
+            fail( "Expected the missing file to fail the batch" );
+        }
+        catch( FileNotFoundException e )
+        {
+            // expected
+        }
+        assertEquals( 1, monitor.m_errors );
+        assertEquals( 1, m_service.getFailedJobs() );
+    }
+
+    @Test
+    public void bytesCopiedAreCounted() throws Exception
+    {
+        // the length of a named pipe is 0, whatever is written to it
+        final File pipe = new File( m_dir, "pipe" );
+        try
+        {
+            Assume.assumeTrue( new ProcessBuilder( "mkfifo", pipe.getPath() ).start().waitFor() == 0 );
+        }
+        catch( IOException e )
+        {
+            Assume.assumeNoException( e );
+        }
+        final byte[] data = new byte[5000];
+        new Random( 1 ).nextBytes( data );
+        Thread writer = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    Files.write( pipe.toPath(), data );
+                }
+                catch( IOException e )
+                {
+                    // shows as missing data
+                }
+            }
+        }
+        );
+        writer.start();
+        List<CopyJob> jobs = new ArrayList<CopyJob>();
+        jobs.add( new CopyJob( pipe, new File( m_dir, "target" ) ) );
+        assertEquals( data.length, m_service.copyAll( jobs, null ) );
+        writer.join();
+        assertEquals( data.length, m_service.getBytesCopied() );
+    }
+
+    private static class RecordingMonitor
+        implements StreamMonitor
+    {
+
+        private final Set<URL> m_completed = new HashSet<URL>();
+        private int m_errors;
+
+        public void notifyUpdate( URL resource, int expected, int count )
+        {
+        }
+
+        public void notifyCompletion( URL resource )
+        {
+            m_completed.add( resource );
+        }
+
+        public void notifyError( URL resource, String message )
+        {
+            m_errors++;
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class DefaultBufferPoolTest
+{
+
+    @Test
+    public void sizeClasses()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool();
+        assertEquals( DefaultBufferPool.MIN_SIZE, pool.acquire( 1 ).length );
+        assertEquals( DefaultBufferPool.MIN_SIZE, pool.acquire( DefaultBufferPool.MIN_SIZE ).length );
+        assertEquals( 2 * DefaultBufferPool.MIN_SIZE, pool.acquire( DefaultBufferPool.MIN_SIZE + 1 ).length );
+        assertEquals( 131072, pool.acquire( 102400 ).length );
+        assertEquals( DefaultBufferPool.MAX_SIZE + 1, pool.acquire( DefaultBufferPool.MAX_SIZE + 1 ).length );
+        assertEquals( 5, pool.getMisses() );
+        assertEquals( 0, pool.getHits() );
+    }
+
+    @Test
+    public void reuseHeapBuffers()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool( 1 );
+        byte[] first = pool.acquire( 10000 );
+        byte[] second = pool.acquire( 10000 );
+        byte[] third = pool.acquire( 10000 );
+        assertNotSame( first, second );
+        pool.release( first );  // shared
+        pool.release( second ); // thread local, shared pool is full
+        pool.release( third );  // dropped
+        assertSame( second, pool.acquire( 10000 ) );
+        assertSame( first, pool.acquire( 10000 ) );
+        assertNotSame( third, pool.acquire( 10000 ) );
+        assertEquals( 2, pool.getHits() );
+        assertEquals( 4, pool.getMisses() );
+    }
+
+    @Test
+    public void buffersOfFinishedThreadsAreReused() throws InterruptedException
+    {
+        final DefaultBufferPool pool = new DefaultBufferPool();
+        final byte[][] released = new byte[1][];
+        Thread thread = new Thread( new Runnable()
+        {
+            public void run()
+            {
+                released[ 0 ] = pool.acquire( 10000 );
+                pool.release( released[ 0 ] );
+            }
+        }
+        );
+        thread.start();
+        thread.join();
+        assertSame( released[ 0 ], pool.acquire( 10000 ) );
+        assertEquals( 1, pool.getHits() );
+    }
+
+    @Test
+    public void foreignBuffersAreIgnored()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool();
+        pool.release( new byte[5000] );
+        pool.release( new byte[DefaultBufferPool.MAX_SIZE * 2] );
+        pool.releaseDirect( ByteBuffer.allocate( DefaultBufferPool.MIN_SIZE ) );
+        pool.acquire( 5000 );
+        pool.acquireDirect( DefaultBufferPool.MIN_SIZE );
+        assertEquals( 0, pool.getHits() );
+    }
+
+    @Test
+    public void reuseDirectBuffers()
+    {
+        DefaultBufferPool pool = new DefaultBufferPool();
+        ByteBuffer buffer = pool.acquireDirect( 100 );
+        assertTrue( buffer.isDirect() );
+        assertEquals( DefaultBufferPool.MIN_SIZE, buffer.capacity() );
+        buffer.put( (byte) 1 ).flip();
+        pool.releaseDirect( buffer );
+        ByteBuffer again = pool.acquireDirect( 200 );
+        assertSame( buffer, again );
+        assertEquals( 0, again.position() );
+        assertEquals( again.capacity(), again.limit() );
+        assertEquals( 1, pool.getHits() );
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirectoryDigestTest
+{
+
+    private File m_dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_dir = Files.createTempDirectory( "digest" ).toFile();
+        write( "a.txt", "a" );
+        write( "dir/b.txt", "b" );
+        write( "dir/sub/c.txt", "c" );
+        write( "other/d.txt", "d" );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtils.delete( m_dir );
+    }
+
+    @Test
+    public void digestCoversContentAndNames() throws Exception
+    {
+        DirectoryDigest digest = DirectoryDigest.compute( m_dir );
+        assertEquals( digest, DirectoryDigest.compute( m_dir ) );
+        assertArrayEquals( MessageDigest.getInstance( "SHA-256" ).digest( "c".getBytes( "UTF-8" ) ),
+                           digest.getDigest( "dir/sub/c.txt" )
+        );
+        assertNotNull( digest.getDigest( "dir/sub" ) );
+        assertNull( digest.getDigest( "dir/missing" ) );
+        assertEquals( 64, digest.toString().length() );
+
+        new File( m_dir, "other/d.txt" ).renameTo( new File( m_dir, "other/e.txt" ) );
+        DirectoryDigest renamed = DirectoryDigest.compute( m_dir );
+        assertFalse( digest.equals( renamed ) );
+        assertEquals( Arrays.asList( "other/d.txt", "other/e.txt" ), renamed.diff( digest ) );
+    }
+
+    @Test
+    public void diffListsChangedPaths() throws IOException
+    {
+        DirectoryDigest before = DirectoryDigest.compute( m_dir );
+        write( "dir/sub/c.txt", "changed" );
+        write( "new/x.txt", "x" );
+        FileUtils.delete( new File( m_dir, "a.txt" ) );
+        DirectoryDigest after = DirectoryDigest.compute( m_dir );
+        assertEquals( Arrays.asList( "a.txt", "dir/sub/c.txt", "new" ), after.diff( before ) );
+        assertEquals( Collections.emptyList(), after.diff( after ) );
+    }
+
+    @Test
+    public void sidecarAvoidsRehashingUnchangedFiles() throws IOException
+    {
+        File sidecar = new File( m_dir.getParentFile(), m_dir.getName() + ".digest" );
+        try
+        {
+            DirectoryDigest digest = DirectoryDigest.compute( m_dir );
+            digest.store( sidecar );
+            DirectoryDigest loaded = DirectoryDigest.load( sidecar );
+            assertEquals( digest, loaded );
+            assertEquals( Collections.emptyList(), loaded.diff( digest ) );
+
+            // content changed behind the back of the digest, with same size and time: the cached digest is kept
+            File b = new File( m_dir, "dir/b.txt" );
+            long time = b.lastModified();
+            RandomAccessFile raf = new RandomAccessFile( b, "rw" );
+            raf.write( 'x' );
+            raf.close();
+            Files.setLastModifiedTime( b.toPath(), FileTime.fromMillis( time ) );
+            assertEquals( digest, DirectoryDigest.compute( m_dir, DirectoryDigest.DEFAULT_ALGORITHM, loaded ) );
+
+            // a new time forces a rehash
+            Files.setLastModifiedTime( b.toPath(), FileTime.fromMillis( time + 60000 ) );
+            DirectoryDigest rehashed = DirectoryDigest.compute( m_dir, DirectoryDigest.DEFAULT_ALGORITHM, loaded );
+            assertEquals( Collections.singletonList( "dir/b.txt" ), rehashed.diff( loaded ) );
+            assertTrue( rehashed.equals( DirectoryDigest.compute( m_dir ) ) );
+        }
+        finally
+        {
+            sidecar.delete();
+        }
+    }
+
+    @Test( timeout = 30000 )
+    public void namedPipesAreNotRead() throws Exception
+    {
+        File pipe = new File( m_dir, "dir/pipe" );
+        try
+        {
+            Process mkfifo = new ProcessBuilder( "mkfifo", pipe.getPath() ).start();
+            Assume.assumeTrue( mkfifo.waitFor() == 0 );
+        }
+        catch( IOException e )
+        {
+            Assume.assumeNoException( e );
+        }
+        // opening the pipe would block, as nothing ever writes to it
+        DirectoryDigest digest = DirectoryDigest.compute( m_dir );
+        assertNotNull( digest.getDigest( "dir/pipe" ) );
+        assertEquals( digest, DirectoryDigest.compute( m_dir ) );
+
+        File sidecar = new File( m_dir.getParentFile(), m_dir.getName() + ".digest" );
+        try
+        {
+            digest.store( sidecar );
+            assertEquals( digest, DirectoryDigest.load( sidecar ) );
+        }
+        finally
+        {
+            sidecar.delete();
+        }
+    }
+
+    private void write( String name, String content ) throws IOException
+    {
+        File file = new File( m_dir, name );
+        file.getParentFile().mkdirs();
+        Files.write( file.toPath(), content.getBytes( "UTF-8" ) );
+    }
+
+}
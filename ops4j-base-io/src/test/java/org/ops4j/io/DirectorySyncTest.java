@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirectorySyncTest
+{
+
+    private File m_source;
+    private File m_target;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_source = Files.createTempDirectory( "syncsource" ).toFile();
+        m_target = new File( Files.createTempDirectory( "synctarget" ).toFile(), "target" );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtils.delete( m_source );
+        FileUtils.delete( m_target.getParentFile() );
+    }
+
+    @Test
+    public void copiesOnlyChangedFiles() throws IOException
+    {
+        write( m_source, "a.txt", "a" );
+        write( m_source, "dir/b.txt", "b" );
+        write( m_source, "dir/sub/c.txt", "c" );
+
+        DirectorySync sync = new DirectorySync( m_source, m_target );
+        DirectorySync.Summary summary = sync.sync( null );
+        assertEquals( Arrays.asList( "a.txt", "dir/b.txt", "dir/sub/c.txt" ), summary.getAdded() );
+        assertEquals( 3, summary.getBytesCopied() );
+        assertEquals( "c", read( m_target, "dir/sub/c.txt" ) );
+
+        summary = sync.sync( null );
+        assertTrue( summary.getAdded().isEmpty() );
+        assertTrue( summary.getUpdated().isEmpty() );
+        assertEquals( 3, summary.getUnchangedCount() );
+        assertEquals( 0, summary.getBytesCopied() );
+
+        write( m_source, "dir/b.txt", "bb" );
+        summary = sync.sync( null );
+        assertEquals( Collections.singletonList( "dir/b.txt" ), summary.getUpdated() );
+        assertEquals( "bb", read( m_target, "dir/b.txt" ) );
+    }
+
+    @Test
+    public void deletesOrphansOnlyWhenAsked() throws IOException
+    {
+        write( m_source, "a.txt", "a" );
+        write( m_target, "orphan.txt", "o" );
+        write( m_target, "old/orphan.txt", "o" );
+        write( m_target, "keep/excluded.log", "x" );
+
+        DirectorySync sync = new DirectorySync( m_source, m_target );
+        sync.setExcludes( new Pattern[]{ ListerUtils.parseFilter( "**.log" ) } );
+        assertTrue( sync.sync( null ).getDeleted().isEmpty() );
+        assertTrue( new File( m_target, "orphan.txt" ).exists() );
+
+        sync.setDeleteOrphans( true );
+        DirectorySync.Summary summary = sync.sync( null );
+        assertEquals( Arrays.asList( "old/orphan.txt", "orphan.txt" ), summary.getDeleted() );
+        assertFalse( new File( m_target, "old" ).exists() );
+        assertTrue( new File( m_target, "keep/excluded.log" ).exists() );
+        assertTrue( new File( m_target, "a.txt" ).exists() );
+    }
+
+    @Test
+    public void includesAndContentComparison() throws IOException
+    {
+        write( m_source, "lib/a.jar", "jar" );
+        write( m_source, "lib/a.txt", "txt" );
+
+        DirectorySync sync = new DirectorySync( m_source, m_target );
+        sync.setIncludes( new Pattern[]{ ListerUtils.parseFilter( "**.jar" ) } );
+        sync.setCompareContent( true );
+        assertEquals( Collections.singletonList( "lib/a.jar" ), sync.sync( null ).getAdded() );
+        assertFalse( new File( m_target, "lib/a.txt" ).exists() );
+
+        // touched but not changed
+        File jar = new File( m_source, "lib/a.jar" );
+        Files.setLastModifiedTime( jar.toPath(), FileTime.fromMillis( jar.lastModified() + 60000 ) );
+        DirectorySync.Summary summary = sync.sync( null );
+        assertTrue( summary.getUpdated().isEmpty() );
+        assertEquals( 1, summary.getUnchangedCount() );
+        assertEquals( jar.lastModified(), new File( m_target, "lib/a.jar" ).lastModified() );
+
+        // changed content of the same size and time
+        long time = jar.lastModified();
+        write( m_source, "lib/a.jar", "JAR" );
+        Files.setLastModifiedTime( jar.toPath(), FileTime.fromMillis( time ) );
+        assertEquals( Collections.singletonList( "lib/a.jar" ), sync.sync( null ).getUpdated() );
+        assertEquals( "JAR", read( m_target, "lib/a.jar" ) );
+    }
+
+    @Test
+    public void doesNotWriteThroughLinkedDirectories() throws IOException
+    {
+        write( m_source, "sub/a.txt", "a" );
+        File elsewhere = new File( m_target.getParentFile(), "elsewhere" );
+        elsewhere.mkdirs();
+        m_target.mkdirs();
+        try
+        {
+            Files.createSymbolicLink( new File( m_target, "sub" ).toPath(), elsewhere.toPath() );
+        }
+        catch( UnsupportedOperationException e )
+        {
+            Assume.assumeNoException( e );
+        }
+
+        DirectorySync sync = new DirectorySync( m_source, m_target );
+        sync.setDeleteOrphans( true );
+        DirectorySync.Summary summary = sync.sync( null );
+        assertEquals( Collections.singletonList( "sub/a.txt" ), summary.getAdded() );
+        assertEquals( Collections.singletonList( "sub" ), summary.getDeleted() );
+        assertEquals( 0, elsewhere.list().length );
+        assertFalse( Files.isSymbolicLink( new File( m_target, "sub" ).toPath() ) );
+        assertEquals( "a", read( m_target, "sub/a.txt" ) );
+    }
+
+    private static void write( File dir, String name, String content ) throws IOException
+    {
+        File file = new File( dir, name );
+        file.getParentFile().mkdirs();
+        Files.write( file.toPath(), content.getBytes( "UTF-8" ) );
+    }
+
+    private static String read( File dir, String name ) throws IOException
+    {
+        return new String( Files.readAllBytes( new File( dir, name ).toPath() ), "UTF-8" );
+    }
+
+}
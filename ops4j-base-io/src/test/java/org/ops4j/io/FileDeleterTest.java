@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileDeleterTest
+{
+
+    private Path m_dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_dir = Files.createTempDirectory( "filedeleter" );
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtils.delete( m_dir.toFile() );
+    }
+
+    @Test
+    public void deleteTreeInParallel() throws IOException
+    {
+        Path tree = createTree( m_dir.resolve( "tree" ) );
+        FileDeleter.Result result = new FileDeleter().delete( tree );
+        assertTrue( result.isDeleted() );
+        assertFalse( Files.exists( tree ) );
+        assertEquals( 1210, result.getFileCount() );
+        assertEquals( 12, result.getDirectoryCount() );
+        assertEquals( 1210 * 10, result.getBytesFreed() );
+        assertEquals( 0, result.getFailureCount() );
+    }
+
+    @Test
+    public void deleteTreeSequentially() throws IOException
+    {
+        Path tree = createTree( m_dir.resolve( "tree" ) );
+        FileDeleter deleter = new FileDeleter();
+        deleter.setParallel( false );
+        FileDeleter.Result result = deleter.delete( tree );
+        assertTrue( result.isDeleted() );
+        assertFalse( Files.exists( tree ) );
+        assertEquals( 1210, result.getFileCount() );
+        assertEquals( 12, result.getDirectoryCount() );
+        assertEquals( 1210 * 10, result.getBytesFreed() );
+    }
+
+    @Test
+    public void deleteFileAndMissingPath() throws IOException
+    {
+        Path file = Files.write( m_dir.resolve( "file" ), new byte[42] );
+        FileDeleter.Result result = new FileDeleter().delete( file );
+        assertTrue( result.isDeleted() );
+        assertEquals( 1, result.getFileCount() );
+        assertEquals( 42, result.getBytesFreed() );
+
+        result = new FileDeleter().delete( file );
+        assertFalse( result.isDeleted() );
+        assertEquals( 0, result.getFileCount() );
+        assertEquals( 0, result.getFailureCount() );
+    }
+
+    @Test
+    public void doesNotFollowSymbolicLinks() throws IOException
+    {
+        Path outside = createTree( m_dir.resolve( "outside" ) );
+        Path tree = Files.createDirectories( m_dir.resolve( "tree" ) );
+        try
+        {
+            Files.createSymbolicLink( tree.resolve( "link" ), outside );
+        }
+        catch( UnsupportedOperationException e )
+        {
+            Assume.assumeNoException( e );
+        }
+        catch( IOException e )
+        {
+            Assume.assumeNoException( e );
+        }
+        FileDeleter.Result result = new FileDeleter().delete( tree );
+        assertTrue( result.isDeleted() );
+        assertEquals( 1, result.getFileCount() );
+        assertEquals( 1, result.getDirectoryCount() );
+        assertEquals( 0, result.getBytesFreed() );
+        assertTrue( Files.exists( outside.resolve( "dir0/file0" ) ) );
+
+        // a link to a directory passed directly is deleted as a link, too
+        Path link = Files.createSymbolicLink( m_dir.resolve( "link" ), outside );
+        assertTrue( FileUtils.delete( link.toFile() ) );
+        assertFalse( Files.exists( link, LinkOption.NOFOLLOW_LINKS ) );
+        assertTrue( Files.exists( outside.resolve( "dir0/file0" ) ) );
+    }
+
+    /**
+     * Creates a tree of 12 directories: the root with 10 files and 10 subdirectories, one of which has a
+     * subdirectory with 1190 files. Each file is 10 bytes long.
+     */
+    private static Path createTree( Path root ) throws IOException
+    {
+        Files.createDirectories( root );
+        byte[] data = new byte[10];
+        for( int i = 0; i < 10; i++ )
+        {
+            Files.write( root.resolve( "file" + i ), data );
+            Path dir = Files.createDirectory( root.resolve( "dir" + i ) );
+            Files.write( dir.resolve( "file0" ), data );
+        }
+        Path large = Files.createDirectory( root.resolve( "dir0" ).resolve( "large" ) );
+        for( int i = 0; i < 1190; i++ )
+        {
+            Files.write( large.resolve( "file" + i ), data );
+        }
+        return root;
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileUtilsTest
+{
+
+    private File m_dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_dir = Files.createTempDirectory( "fileutils" ).toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtils.delete( m_dir );
+    }
+
+    @Test
+    public void compareSmallFiles() throws IOException
+    {
+        File a = createFile( "a", 1000, 1 );
+        File b = createFile( "b", 1000, 1 );
+        File c = createFile( "c", 1000, 2 );
+        File d = createFile( "d", 999, 1 );
+        assertTrue( FileUtils.compareFiles( a.toPath(), a.toPath() ) );
+        assertTrue( FileUtils.compareFiles( a.toPath(), b.toPath() ) );
+        assertFalse( FileUtils.compareFiles( a.toPath(), c.toPath() ) );
+        assertFalse( FileUtils.compareFiles( a.toPath(), d.toPath() ) );
+    }
+
+    @Test
+    public void compareMappedFiles() throws IOException
+    {
+        File a = createFile( "a", 3 * 1024 * 1024 + 17, 1 );
+        File b = createFile( "b", 3 * 1024 * 1024 + 17, 1 );
+        assertTrue( FileUtils.compareFiles( a.toPath(), b.toPath() ) );
+        patch( b, 3 * 1024 * 1024 + 16 );
+        assertFalse( FileUtils.compareFiles( a.toPath(), b.toPath() ) );
+    }
+
+    @Test
+    public void compareLargeFilesInParallel() throws IOException
+    {
+        long size = 100L * 1024 * 1024 + 5;
+        File a = createSparseFile( "a", size );
+        File b = createSparseFile( "b", size );
+        assertTrue( FileUtils.compareFiles( a.toPath(), b.toPath() ) );
+        patch( b, size - 2 );
+        assertFalse( FileUtils.compareFiles( a.toPath(), b.toPath() ) );
+    }
+
+    @Test
+    public void materializeAsHardLink() throws IOException
+    {
+        File source = createFile( "source", 1000, 1 );
+        File dest = createFile( "dest", 10, 2 );
+        MaterializeStrategy strategy = FileUtils.materialize( source, dest, false, null );
+        // both files are in the same temporary directory, so a hard link is possible on all usual file systems
+        assertEquals( MaterializeStrategy.HARD_LINK, strategy );
+        assertTrue( Files.isSameFile( source.toPath(), dest.toPath() ) );
+        assertFalse( Files.isSymbolicLink( dest.toPath() ) );
+        assertTrue( FileUtils.compareFiles( source.toPath(), dest.toPath() ) );
+    }
+
+    @Test
+    public void materializeOntoItself() throws IOException
+    {
+        File source = createFile( "source", 1000, 1 );
+        File copy = createFile( "copy", 1000, 1 );
+        assertEquals( MaterializeStrategy.HARD_LINK, FileUtils.materialize( source, source, true, null ) );
+        assertTrue( FileUtils.compareFiles( source.toPath(), copy.toPath() ) );
+
+        File hardLink = new File( m_dir, "hard" );
+        Files.createLink( hardLink.toPath(), source.toPath() );
+        assertEquals( MaterializeStrategy.HARD_LINK, FileUtils.materialize( hardLink, source, true, null ) );
+        assertTrue( FileUtils.compareFiles( source.toPath(), copy.toPath() ) );
+
+        File symbolicLink = new File( m_dir, "symbolic" );
+        Files.createSymbolicLink( symbolicLink.toPath(), source.toPath() );
+        assertEquals( MaterializeStrategy.SYMBOLIC_LINK, FileUtils.materialize( source, symbolicLink, true, null ) );
+        assertTrue( FileUtils.compareFiles( source.toPath(), copy.toPath() ) );
+        assertEquals( 4, m_dir.list().length );
+    }
+
+    @Test
+    public void materializeReplacesDestination() throws IOException
+    {
+        File source = createFile( "source", 1000, 1 );
+        File dest = createFile( "dest", 10, 2 );
+        File other = createFile( "other", 10, 2 );
+        File link = new File( m_dir, "link" );
+        Files.createSymbolicLink( link.toPath(), other.toPath() );
+        assertEquals( MaterializeStrategy.HARD_LINK, FileUtils.materialize( source, dest, true, null ) );
+        assertEquals( MaterializeStrategy.HARD_LINK, FileUtils.materialize( source, link, true, null ) );
+        assertTrue( FileUtils.compareFiles( source.toPath(), dest.toPath() ) );
+        assertFalse( Files.isSymbolicLink( link.toPath() ) );
+        assertTrue( FileUtils.compareFiles( source.toPath(), link.toPath() ) );
+        // the file the replaced link pointed to is untouched
+        assertEquals( 10, other.length() );
+        assertEquals( 4, m_dir.list().length );
+    }
+
+    @Test( expected = FileNotFoundException.class )
+    public void materializeMissingSource() throws IOException
+    {
+        FileUtils.materialize( new File( m_dir, "missing" ), new File( m_dir, "dest" ), true, null );
+    }
+
+    private File createFile( String name, int size, long seed ) throws IOException
+    {
+        byte[] data = new byte[size];
+        new Random( seed ).nextBytes( data );
+        File file = new File( m_dir, name );
+        Files.write( file.toPath(), data );
+        return file;
+    }
+
+    private File createSparseFile( String name, long size ) throws IOException
+    {
+        File file = new File( m_dir, name );
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.setLength( size );
+        }
+        finally
+        {
+            raf.close();
+        }
+        return file;
+    }
+
+    private static void patch( File file, long position ) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile( file, "rw" );
+        try
+        {
+            raf.seek( position );
+            int b = raf.read();
+            raf.seek( position );
+            raf.write( b + 1 );
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+
+}
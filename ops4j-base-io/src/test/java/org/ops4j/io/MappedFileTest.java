@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedFileTest
+{
+
+    private File m_file;
+    private byte[] m_data;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_data = new byte[10000];
+        new Random( 6 ).nextBytes( m_data );
+        m_file = File.createTempFile( "mapped", ".bin" );
+        Files.write( m_file.toPath(), m_data );
+    }
+
+    @After
+    public void tearDown()
+    {
+        m_file.delete();
+    }
+
+    @Test
+    public void windows() throws IOException
+    {
+        MappedFile file = new MappedFile( m_file.toPath(), 4096 );
+        try
+        {
+            assertEquals( m_data.length, file.size() );
+            assertEquals( 3, file.getWindowCount() );
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for( int i = 0; i < file.getWindowCount(); i++ )
+            {
+                MappedByteBuffer window = file.window( i );
+                byte[] bytes = new byte[window.remaining()];
+                window.get( bytes );
+                out.write( bytes );
+                MappedFile.unmap( window );
+            }
+            assertArrayEquals( m_data, out.toByteArray() );
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    @Test
+    public void unmapIgnoresHeapBuffers()
+    {
+        assertFalse( MappedFile.unmap( ByteBuffer.allocate( 10 ) ) );
+    }
+
+    @Test
+    public void copyMappedRegion() throws IOException
+    {
+        MappedFile file = new MappedFile( m_file.toPath(), 1000 );
+        try
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals( 5000, StreamUtils.copyMapped( null, null, file, 2500, 5000, Channels.newChannel( out ) ) );
+            assertArrayEquals( Arrays.copyOfRange( m_data, 2500, 7500 ), out.toByteArray() );
+
+            out.reset();
+            assertEquals( m_data.length, StreamUtils.copyMapped( null, null, file, Channels.newChannel( out ) ) );
+            assertArrayEquals( m_data, out.toByteArray() );
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+}
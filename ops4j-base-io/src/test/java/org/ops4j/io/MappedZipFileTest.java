@@ -0,0 +1,200 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedZipFileTest
+{
+
+    private File m_file;
+    private byte[] m_stored;
+    private byte[] m_deflated;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        Random random = new Random( 7 );
+        m_stored = new byte[5000];
+        random.nextBytes( m_stored );
+        m_deflated = new byte[100000];
+        for( int i = 0; i < m_deflated.length; i++ )
+        {
+            m_deflated[ i ] = (byte) ( random.nextInt( 4 ) + 'a' );
+        }
+        m_file = File.createTempFile( "mapped", ".zip" );
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( m_file ) );
+        try
+        {
+            out.setComment( "a comment" );
+            out.putNextEntry( new ZipEntry( "META-INF/" ) );
+            ZipEntry stored = new ZipEntry( "META-INF/stored.bin" );
+            stored.setMethod( ZipEntry.STORED );
+            stored.setSize( m_stored.length );
+            CRC32 crc = new CRC32();
+            crc.update( m_stored );
+            stored.setCrc( crc.getValue() );
+            out.putNextEntry( stored );
+            out.write( m_stored );
+            out.putNextEntry( new ZipEntry( "org/deflated-é.txt" ) );
+            out.write( m_deflated );
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        m_file.delete();
+    }
+
+    @Test
+    public void indexesCentralDirectory() throws IOException
+    {
+        MappedZipFile zip = new MappedZipFile( m_file );
+        ZipFile reference = new ZipFile( m_file );
+        try
+        {
+            assertEquals( 3, zip.size() );
+            assertEquals( "META-INF/", zip.getName( 0 ) );
+            assertTrue( zip.isDirectory( 0 ) );
+            assertFalse( zip.isDirectory( 1 ) );
+            assertEquals( 2, zip.indexOf( "org/deflated-é.txt" ) );
+            assertEquals( -1, zip.indexOf( "missing" ) );
+            for( int i = 0; i < zip.size(); i++ )
+            {
+                ZipEntry expected = reference.getEntry( zip.getName( i ) );
+                ZipEntry entry = zip.getEntry( i );
+                assertEquals( expected.getSize(), entry.getSize() );
+                assertEquals( expected.getCompressedSize(), entry.getCompressedSize() );
+                assertEquals( expected.getCrc(), entry.getCrc() );
+                assertEquals( expected.getMethod(), entry.getMethod() );
+                assertEquals( expected.getTime(), entry.getTime() );
+            }
+        }
+        finally
+        {
+            reference.close();
+            zip.close();
+        }
+    }
+
+    @Test
+    public void storedEntriesAreSlicesOfTheMapping() throws IOException
+    {
+        MappedZipFile zip = new MappedZipFile( m_file );
+        try
+        {
+            ByteBuffer content = zip.getContent( zip.indexOf( "META-INF/stored.bin" ) );
+            assertTrue( content.isDirect() );
+            assertTrue( content.isReadOnly() );
+            byte[] bytes = new byte[content.remaining()];
+            content.get( bytes );
+            assertArrayEquals( m_stored, bytes );
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+    @Test
+    public void deflatedEntriesAreInflatedOnDemand() throws IOException
+    {
+        MappedZipFile zip = new MappedZipFile( m_file );
+        try
+        {
+            int index = zip.indexOf( "org/deflated-é.txt" );
+            assertTrue( zip.getCompressedSize( index ) < m_deflated.length );
+            assertArrayEquals( m_deflated, zip.getContent( index ).array() );
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            StreamUtils.copyStream( zip.getInputStream( index ), out, true );
+            assertArrayEquals( m_deflated, out.toByteArray() );
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+    @Test
+    public void entriesCanBeListed() throws IOException
+    {
+        MappedZipFile zip = new MappedZipFile( m_file );
+        try
+        {
+            List<URL> urls = new ZipLister(
+                m_file.toURI().toURL(), zip.entries(), ListerUtils.parseFilter( "META-INF/**" )
+            ).list();
+            assertEquals( 1, urls.size() );
+            assertTrue( urls.get( 0 ).toExternalForm().endsWith( "!/META-INF/stored.bin" ) );
+        }
+        finally
+        {
+            zip.close();
+        }
+    }
+
+    @Test
+    public void rejectsFilesThatAreNoArchives() throws IOException
+    {
+        File file = File.createTempFile( "mapped", ".bin" );
+        try
+        {
+            Files.write( file.toPath(), new byte[100] );
+            new MappedZipFile( file );
+            fail( "ZipException expected" );
+        }
+        catch( ZipException e )
+        {
+            // expected
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ops4j.monitors.stream.LongStreamMonitor;
+
+public class ParallelFileCopierTest
+{
+
+    private File m_dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        m_dir = Files.createTempDirectory( "parallelcopy" ).toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        FileUtils.delete( m_dir );
+    }
+
+    @Test
+    public void copyInChunks() throws IOException
+    {
+        byte[] data = new byte[3 * 1024 * 1024 + 123];
+        new Random( 5 ).nextBytes( data );
+        File src = new File( m_dir, "src" );
+        Files.write( src.toPath(), data );
+        File dest = new File( m_dir, "dest" );
+        // a longer, stale destination must be truncated
+        Files.write( dest.toPath(), new byte[5 * 1024 * 1024] );
+
+        ParallelFileCopier copier = new ParallelFileCopier();
+        copier.setThreshold( 0 );
+        copier.setChunkSize( 100000 );
+        copier.setParallelism( 4 );
+        TotalMonitor monitor = new TotalMonitor();
+        assertEquals( data.length, copier.copy( src, dest, monitor ) );
+
+        assertTrue( FileUtils.compareFiles( src.toPath(), dest.toPath() ) );
+        assertEquals( data.length, monitor.m_count );
+        assertEquals( data.length, monitor.m_expected );
+        assertFalse( monitor.m_backwards );
+        assertTrue( monitor.m_completed );
+    }
+
+    @Test
+    public void smallFilesAreCopiedSequentially() throws IOException
+    {
+        File src = new File( m_dir, "src" );
+        Files.write( src.toPath(), "small".getBytes() );
+        File dest = new File( m_dir, "dest" );
+        assertEquals( 5, new ParallelFileCopier().copy( src, dest, null ) );
+        assertTrue( FileUtils.compareFiles( src.toPath(), dest.toPath() ) );
+    }
+
+    private static class TotalMonitor
+        implements LongStreamMonitor
+    {
+
+        private long m_count;
+        private long m_expected;
+        private boolean m_completed;
+        private boolean m_backwards;
+
+        public void notifyUpdate( URL resource, long expected, long count )
+        {
+            m_backwards |= count < m_count;
+            m_expected = expected;
+            m_count = count;
+        }
+
+        public void notifyUpdate( URL resource, int expected, int count )
+        {
+            notifyUpdate( resource, (long) expected, (long) count );
+        }
+
+        public void notifyCompletion( URL resource )
+        {
+            m_completed = true;
+        }
+
+        public void notifyError( URL resource, String message )
+        {
+        }
+    }
+
+}
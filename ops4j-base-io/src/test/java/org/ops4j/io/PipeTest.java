@@ -0,0 +1,212 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PipeTest
+{
+
+    @Test
+    public void pumpsUntilEndOfStream() throws Exception
+    {
+        int pumps = Pipe.getLivePumpCount();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new Pipe( new ByteArrayInputStream( "hello".getBytes( "UTF-8" ) ), out ).start( "test-pipe" );
+        awaitPumps( pumps );
+        assertEquals( "hello", out.toString( "UTF-8" ) );
+    }
+
+    @Test
+    public void stoppedPumpIsReusedByNextPipe() throws Exception
+    {
+        int pumps = Pipe.getLivePumpCount();
+        PipedOutputStream process = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream( process );
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        Pipe pipe = new Pipe( in, first ).start( "first" );
+        assertEquals( pumps + 1, Pipe.getLivePumpCount() );
+        process.write( 'a' );
+        process.flush();
+        awaitContent( first, "a" );
+        pipe.stop();
+
+        // data read while disconnected goes to the next pipe on the same stream
+        process.write( 'b' );
+        process.flush();
+        new Pipe( in, second ).start( "second" );
+        assertEquals( pumps + 1, Pipe.getLivePumpCount() );
+        awaitContent( second, "b" );
+        assertEquals( "a", first.toString( "UTF-8" ) );
+
+        process.close();
+        awaitPumps( pumps );
+    }
+
+    @Test
+    public void bufferedPipeIsNotSlowedDownBySink() throws Exception
+    {
+        final byte[] data = new byte[200000];
+        new Random( 1 ).nextBytes( data );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream slowSink = new OutputStream()
+        {
+            @Override
+            public void write( int b ) throws IOException
+            {
+                write( new byte[]{ (byte) b }, 0, 1 );
+            }
+
+            @Override
+            public void write( byte[] b, int off, int len ) throws IOException
+            {
+                try
+                {
+                    release.await();
+                }
+                catch( InterruptedException e )
+                {
+                    throw new InterruptedIOException();
+                }
+                out.write( b, off, len );
+            }
+        };
+        int pumps = Pipe.getLivePumpCount();
+        Pipe pipe = new Pipe( new ByteArrayInputStream( data ), slowSink )
+            .buffer( 4096, Pipe.OverflowPolicy.SPILL_TO_DISK )
+            .start( "spilling" );
+        // the whole source is read while the sink is stuck
+        for( int i = 0; i < 500 && pipe.getSpilledBytes() + 4096 + 8192 < data.length; i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertTrue( pipe.getSpilledBytes() + 4096 + 8192 >= data.length );
+        assertEquals( pumps + 1, Pipe.getLivePumpCount() );
+
+        release.countDown();
+        awaitPumps( pumps );
+        assertArrayEquals( data, out.toByteArray() );
+        assertEquals( 0, pipe.getDroppedBytes() );
+    }
+
+    @Test
+    public void coalescesFlushes() throws Exception
+    {
+        byte[] data = new byte[200000];
+        new Random( 2 ).nextBytes( data );
+        int pumps = Pipe.getLivePumpCount();
+        FlushCountingStream out = new FlushCountingStream();
+        Pipe pipe = new Pipe( new ByteArrayInputStream( data ), out )
+            .flush( Pipe.FlushPolicy.everyBytes( 64 * 1024 ) )
+            .start( "coalescing" );
+        awaitPumps( pumps );
+        assertArrayEquals( data, out.toByteArray() );
+        assertEquals( data.length, pipe.getBytesPumped() );
+        // three times 64K, and once at the end of the data
+        assertEquals( 4, out.m_flushes );
+        assertEquals( 4, pipe.getFlushCount() );
+        assertTrue( pipe.getStallTime( TimeUnit.NANOSECONDS ) > 0 );
+
+        out = new FlushCountingStream();
+        new Pipe( new ByteArrayInputStream( data ), out ).start( "immediate" );
+        awaitPumps( pumps );
+        assertEquals( ( data.length + 8191 ) / 8192, out.m_flushes );
+    }
+
+    @Test
+    public void brokenSinkIsReplacedWithoutLosingData() throws Exception
+    {
+        int pumps = Pipe.getLivePumpCount();
+        PipedOutputStream process = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream( process );
+        OutputStream broken = new OutputStream()
+        {
+            @Override
+            public void write( int b ) throws IOException
+            {
+                throw new IOException( "broken" );
+            }
+        };
+        Pipe pipe = new Pipe( in, broken ).start( "broken" );
+        process.write( 'a' );
+        process.flush();
+        Thread.sleep( 50 );
+        pipe.stop();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new Pipe( in, out ).flush( Pipe.FlushPolicy.LINE ).start( "replacement" );
+        process.write( 'b' );
+        process.close();
+        awaitPumps( pumps );
+        assertEquals( "ab", out.toString( "UTF-8" ) );
+    }
+
+    private static class FlushCountingStream extends ByteArrayOutputStream
+    {
+
+        int m_flushes;
+
+        @Override
+        public void flush()
+        {
+            m_flushes++;
+        }
+    }
+
+    private static void awaitContent( ByteArrayOutputStream out, String expected ) throws Exception
+    {
+        for( int i = 0; i < 500 && !expected.equals( out.toString( "UTF-8" ) ); i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( expected, out.toString( "UTF-8" ) );
+    }
+
+    private static void awaitPumps( int expected ) throws InterruptedException
+    {
+        for( int i = 0; i < 500; i++ )
+        {
+            if( Pipe.getLivePumpCount() == expected )
+            {
+                return;
+            }
+            Thread.sleep( 10 );
+        }
+        fail( "Expected " + expected + " live pumps, but got " + Pipe.getLivePumpCount() );
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class RingBufferTest
+{
+
+    @Test
+    public void dropOldestKeepsRecentData() throws IOException
+    {
+        RingBuffer buffer = new RingBuffer( 4, Pipe.OverflowPolicy.DROP_OLDEST );
+        buffer.write( bytes( "abc" ), 0, 3 );
+        buffer.write( bytes( "defghij" ), 0, 7 );
+        buffer.close();
+        assertEquals( "ghij", drain( buffer ) );
+        assertEquals( 6, buffer.getDropped() );
+    }
+
+    @Test
+    public void dropNewestKeepsBufferedData() throws IOException
+    {
+        RingBuffer buffer = new RingBuffer( 4, Pipe.OverflowPolicy.DROP_NEWEST );
+        buffer.write( bytes( "abc" ), 0, 3 );
+        buffer.write( bytes( "defghij" ), 0, 7 );
+        buffer.close();
+        assertEquals( "abcd", drain( buffer ) );
+        assertEquals( 6, buffer.getDropped() );
+    }
+
+    @Test
+    public void spillKeepsOrder() throws IOException
+    {
+        RingBuffer buffer = new RingBuffer( 4, Pipe.OverflowPolicy.SPILL_TO_DISK );
+        buffer.write( bytes( "abc" ), 0, 3 );
+        buffer.write( bytes( "defghij" ), 0, 7 );
+        byte[] two = new byte[2];
+        assertEquals( 2, buffer.read( two ) );
+        // still spilling, so this goes to disk, after the earlier overflow
+        buffer.write( bytes( "kl" ), 0, 2 );
+        buffer.close();
+        assertEquals( "ab" + "cdefghijkl", new String( two, "UTF-8" ) + drain( buffer ) );
+        assertEquals( 8, buffer.getSpilled() );
+        assertEquals( 0, buffer.getDropped() );
+        buffer.release();
+    }
+
+    @Test
+    public void blockWaitsForReader() throws Exception
+    {
+        final RingBuffer buffer = new RingBuffer( 4, Pipe.OverflowPolicy.BLOCK );
+        Thread writer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    buffer.write( bytes( "abcdefghij" ), 0, 10 );
+                    buffer.close();
+                }
+                catch( IOException e )
+                {
+                    throw new RuntimeException( e );
+                }
+            }
+        };
+        writer.start();
+        Thread.sleep( 50 );
+        assertTrue( writer.isAlive() );
+        assertEquals( "abcdefghij", drain( buffer ) );
+        writer.join( 5000 );
+        assertEquals( 0, buffer.getDropped() );
+    }
+
+    private static String drain( RingBuffer buffer ) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] data = new byte[3];
+        int n;
+        while( ( n = buffer.read( data ) ) != -1 )
+        {
+            out.write( data, 0, n );
+        }
+        return out.toString( "UTF-8" );
+    }
+
+    private static byte[] bytes( String s ) throws IOException
+    {
+        return s.getBytes( "UTF-8" );
+    }
+
+}
@@ -19,11 +19,28 @@ package org.ops4j.io;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
 import junit.framework.ComparisonFailure;
 import junit.framework.TestCase;
+import org.ops4j.monitors.stream.LongStreamMonitor;
+import org.ops4j.monitors.stream.StreamMonitor;
+import org.ops4j.monitors.stream.StreamProgress;
 
 public class StreamUtilTestCase extends TestCase
 {
@@ -111,6 +128,20 @@ public class StreamUtilTestCase extends TestCase
         in2.close();
     }
 
+    public void testCompareLargeStreams()
+        throws Exception
+    {
+        byte[] data1 = new byte[200000];
+        new Random( 4 ).nextBytes( data1 );
+        byte[] data2 = data1.clone();
+        assertTrue( StreamUtils.compareStreams( new ByteArrayInputStream( data1 ), new ByteArrayInputStream( data2 ) ) );
+        data2[ 150000 ]++;
+        assertFalse( StreamUtils.compareStreams( new ByteArrayInputStream( data1 ), new ByteArrayInputStream( data2 ) ) );
+        assertFalse( StreamUtils.compareStreams( new ByteArrayInputStream( data1 ),
+                                                 new ByteArrayInputStream( data1, 0, 65536 )
+        ) );
+    }
+
     public void testCopyStream1()
         throws Exception
     {
@@ -163,6 +194,279 @@ public class StreamUtilTestCase extends TestCase
         }
     }
 
+    public void testCopyFileStreams()
+        throws Exception
+    {
+        byte[] data = new byte[300000];
+        new Random( 1 ).nextBytes( data );
+        File src = createFile( data );
+        File dest = File.createTempFile( "streamutils", ".dest" );
+        try
+        {
+            FileInputStream in = new FileInputStream( src );
+            // skip a few bytes to check the transfer starts at the current position
+            assertEquals( 10, in.skip( 10 ) );
+            CountingMonitor monitor = new CountingMonitor();
+            StreamUtils.copyStream( monitor, src.toURI().toURL(), data.length, in, new FileOutputStream( dest ), true );
+            assertTrue( Arrays.equals( Arrays.copyOfRange( data, 10, data.length ), readFile( dest ) ) );
+            assertEquals( data.length - 10, monitor.m_count );
+            assertTrue( monitor.m_completed );
+        }
+        finally
+        {
+            src.delete();
+            dest.delete();
+        }
+    }
+
+    public void testCopyChannel()
+        throws Exception
+    {
+        byte[] data = new byte[300000];
+        new Random( 2 ).nextBytes( data );
+        File src = createFile( data );
+        try
+        {
+            // file channel to arbitrary channel
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FileChannel in = new FileInputStream( src ).getChannel();
+            assertEquals( data.length, StreamUtils.copyChannel( null, null, 0, in, Channels.newChannel( out ), true ) );
+            assertFalse( in.isOpen() );
+            assertTrue( Arrays.equals( data, out.toByteArray() ) );
+
+            // arbitrary channel to file channel
+            File dest = File.createTempFile( "streamutils", ".dest" );
+            FileOutputStream fos = new FileOutputStream( dest );
+            fos.write( 42 );
+            long copied = StreamUtils.copyChannel( null, null, 0, Channels.newChannel( new ByteArrayInputStream( data ) ),
+                                                   fos.getChannel(), false
+            );
+            fos.write( 43 );
+            fos.close();
+            assertEquals( data.length, copied );
+            byte[] result = readFile( dest );
+            assertEquals( data.length + 2, result.length );
+            assertEquals( 42, result[ 0 ] );
+            assertEquals( 43, result[ result.length - 1 ] );
+            assertTrue( Arrays.equals( data, Arrays.copyOfRange( result, 1, result.length - 1 ) ) );
+            dest.delete();
+        }
+        finally
+        {
+            src.delete();
+        }
+    }
+
+    public void testCopyStreamWithDigests()
+        throws Exception
+    {
+        byte[] data = new byte[300000];
+        new Random( 4 ).nextBytes( data );
+        File src = createFile( data );
+        File dest = File.createTempFile( "streamutils", ".dest" );
+        try
+        {
+            // file streams must not take the transfer path when digesting
+            MessageDigest sha = MessageDigest.getInstance( "SHA-256" );
+            CRC32 crc = new CRC32();
+            long copied = StreamUtils.copyStream( null, new FileInputStream( src ), new FileOutputStream( dest ), true,
+                                                  new MessageDigest[]{ sha }, new Checksum[]{ crc }
+            );
+            assertEquals( data.length, copied );
+            assertTrue( Arrays.equals( data, readFile( dest ) ) );
+            assertTrue( Arrays.equals( MessageDigest.getInstance( "SHA-256" ).digest( data ), sha.digest() ) );
+            CRC32 expected = new CRC32();
+            expected.update( data, 0, data.length );
+            assertEquals( expected.getValue(), crc.getValue() );
+
+            MessageDigest md5 = MessageDigest.getInstance( "MD5" );
+            StreamUtils.copyStream( new ByteArrayInputStream( data ), new ByteArrayOutputStream(), true, md5 );
+            assertTrue( Arrays.equals( MessageDigest.getInstance( "MD5" ).digest( data ), md5.digest() ) );
+        }
+        finally
+        {
+            src.delete();
+            dest.delete();
+        }
+    }
+
+    public void testToHex()
+    {
+        assertEquals( "", StreamUtils.toHex( new byte[0] ) );
+        assertEquals( "00017f80ff", StreamUtils.toHex( new byte[]{ 0, 1, 127, -128, -1 } ) );
+        assertEquals( "x7f80", StreamUtils.appendHex( new StringBuilder( "x" ), new byte[]{ 0, 127, -128, 1 }, 1, 2 )
+            .toString()
+        );
+    }
+
+    public void testThrottledProgress()
+        throws Exception
+    {
+        byte[] data = new byte[3 * 1024 * 1024 + 10];
+        LongCountingMonitor monitor = new LongCountingMonitor();
+        StreamProgress progress = new StreamProgress( monitor, null, data.length, 1024 * 1024, 0 );
+        long copied = StreamUtils.copyStream( progress, new ByteArrayInputStream( data ), new ByteArrayOutputStream(),
+                                              true
+        );
+        assertEquals( data.length, copied );
+        // one update per megabyte plus the final count
+        assertEquals( 4, monitor.m_updates );
+        assertEquals( data.length, monitor.m_count );
+        assertTrue( monitor.m_completed );
+    }
+
+    public void testBufferSize()
+    {
+        assertEquals( 102400, StreamUtils.bufferSize( -1 ) );
+        assertEquals( 4096, StreamUtils.bufferSize( 10 ) );
+        assertEquals( 50000, StreamUtils.bufferSize( 50000 ) );
+        assertEquals( 102400, StreamUtils.bufferSize( 200000 ) );
+        assertEquals( 1024 * 1024, StreamUtils.bufferSize( 5L * 1024 * 1024 * 1024 ) );
+    }
+
+    public void testCopyStreamLargerThanExpected()
+        throws Exception
+    {
+        byte[] data = new byte[50000];
+        new Random( 3 ).nextBytes( data );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamUtils.copyStream( null, null, 10, new ByteArrayInputStream( data ), out, true );
+        assertTrue( Arrays.equals( data, out.toByteArray() ) );
+    }
+
+    public void testCopyFromNamedPipe()
+        throws Exception
+    {
+        final byte[] data = new byte[50000];
+        new Random( 4 ).nextBytes( data );
+        final File pipe = new File( System.getProperty( "java.io.tmpdir" ), "streamutils-" + System.nanoTime() );
+        File dest = File.createTempFile( "streamutils", ".dest" );
+        try
+        {
+            try
+            {
+                if( new ProcessBuilder( "mkfifo", pipe.getPath() ).start().waitFor() != 0 )
+                {
+                    return;
+                }
+            }
+            catch( IOException e )
+            {
+                // no mkfifo on this platform
+                return;
+            }
+            Thread writer = new Thread( new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        StreamUtils.copyStream( new ByteArrayInputStream( data ), new FileOutputStream( pipe ), true );
+                    }
+                    catch( IOException e )
+                    {
+                        // shows as missing data
+                    }
+                }
+            }
+            );
+            writer.start();
+            // a pipe has no position, so the bytes cannot be transferred by the file channel
+            long copied = StreamUtils.copyStream( (StreamProgress) null, new FileInputStream( pipe ),
+                                                  new FileOutputStream( dest ), true
+            );
+            writer.join();
+            assertEquals( data.length, copied );
+            assertTrue( Arrays.equals( data, Files.readAllBytes( dest.toPath() ) ) );
+        }
+        finally
+        {
+            pipe.delete();
+            dest.delete();
+        }
+    }
+
+    public void testCopyReaderToWriterKeepsOpen()
+        throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        for( int i = 0; i < 5000; i++ )
+        {
+            sb.append( "line " ).append( i ).append( '\u4512' );
+        }
+        String s = sb.toString();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamWriter writer = new OutputStreamWriter( baos, "UTF-8" );
+        StreamUtils.copyReaderToWriter( new StringReader( s ), writer, false );
+        writer.write( "!" );
+        writer.close();
+        assertEquals( s + "!", baos.toString( "UTF-8" ) );
+    }
+
+    public void testTranscode()
+        throws Exception
+    {
+        StringBuilder sb = new StringBuilder();
+        for( int i = 0; i < 20000; i++ )
+        {
+            // mostly ASCII with the odd multi-byte and supplementary character
+            sb.append( "HabbaZout " ).append( i );
+            if( i % 1000 == 0 )
+            {
+                sb.append( "\u00e9\u4512\ud83d\ude00" );
+            }
+        }
+        String s = sb.toString();
+        assertTranscode( s, "UTF-8", "UTF-16" );
+        assertTranscode( s, "UTF-16", "UTF-8" );
+        assertTranscode( s, "UTF-8", "GB18030" );
+        assertTranscode( s, "UTF-8", "UTF-8" );
+        String latin = "caf\u00e9 na\u00efve";
+        assertTranscode( latin, "ISO-8859-1", "UTF-8" );
+        assertTranscode( latin, "UTF-8", "ISO-8859-1" );
+
+        // unmappable characters are replaced
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamUtils.transcode( new ByteArrayInputStream( "a\u4512b".getBytes( "UTF-8" ) ), Charset.forName( "UTF-8" ),
+                               out, Charset.forName( "ISO-8859-1" ), true
+        );
+        assertEquals( "a?b", out.toString( "ISO-8859-1" ) );
+    }
+
+    private static void assertTranscode( String s, String from, String to )
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamUtils.transcode( new ByteArrayInputStream( s.getBytes( from ) ), Charset.forName( from ), out,
+                               Charset.forName( to ), true
+        );
+        assertEquals( s, out.toString( to ) );
+    }
+
+    private static File createFile( byte[] data )
+        throws IOException
+    {
+        File file = File.createTempFile( "streamutils", ".src" );
+        FileOutputStream out = new FileOutputStream( file );
+        try
+        {
+            out.write( data );
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    private static byte[] readFile( File file )
+        throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamUtils.copyStream( new FileInputStream( file ), out, true );
+        return out.toByteArray();
+    }
+
     public void testCopyReaderToWriter()
         throws Exception
     {
@@ -220,6 +524,43 @@ public class StreamUtilTestCase extends TestCase
 
     }
 
+    private static class CountingMonitor
+        implements StreamMonitor
+    {
+
+        private int m_count;
+        protected boolean m_completed;
+
+        public void notifyUpdate( URL resource, int expected, int count )
+        {
+            m_count = count;
+        }
+
+        public void notifyCompletion( URL resource )
+        {
+            m_completed = true;
+        }
+
+        public void notifyError( URL resource, String message )
+        {
+        }
+    }
+
+    private static class LongCountingMonitor
+        extends CountingMonitor
+        implements LongStreamMonitor
+    {
+
+        private int m_updates;
+        private long m_count;
+
+        public void notifyUpdate( URL resource, long expected, long count )
+        {
+            m_updates++;
+            m_count = count;
+        }
+    }
+
     private static class MyByteArrayOutputStream extends ByteArrayOutputStream
     {
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class TeeTest
+{
+
+    @Test
+    public void writesEverythingToEverySink() throws Exception
+    {
+        byte[] data = new byte[100000];
+        new Random( 1 ).nextBytes( data );
+        Tee tee = new Tee( new ByteArrayInputStream( data ) );
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        Tee.Sink one = tee.attach( first );
+        Tee.Sink two = tee.attach( second, 1024, Pipe.OverflowPolicy.BLOCK, Pipe.FlushPolicy.LINE );
+        tee.start( "tee" );
+        awaitSinks( tee, 0 );
+        assertArrayEquals( data, first.toByteArray() );
+        assertArrayEquals( data, second.toByteArray() );
+        assertEquals( data.length, one.getBytesWritten() );
+        assertEquals( data.length, two.getBytesWritten() );
+        assertFalse( one.isAttached() );
+    }
+
+    @Test
+    public void slowSinkDoesNotHoldBackOthers() throws Exception
+    {
+        byte[] data = new byte[100000];
+        new Random( 2 ).nextBytes( data );
+        final CountDownLatch release = new CountDownLatch( 1 );
+        final ByteArrayOutputStream stuck = new ByteArrayOutputStream();
+        OutputStream slow = new OutputStream()
+        {
+            @Override
+            public void write( int b ) throws IOException
+            {
+                write( new byte[]{ (byte) b }, 0, 1 );
+            }
+
+            @Override
+            public void write( byte[] b, int off, int len ) throws IOException
+            {
+                try
+                {
+                    release.await();
+                }
+                catch( InterruptedException e )
+                {
+                    throw new InterruptedIOException();
+                }
+                stuck.write( b, off, len );
+            }
+        };
+        Tee tee = new Tee( new ByteArrayInputStream( data ) );
+        ByteArrayOutputStream fast = new ByteArrayOutputStream();
+        Tee.Sink fastSink = tee.attach( fast );
+        Tee.Sink slowSink = tee.attach( slow, 4096, Pipe.OverflowPolicy.DROP_NEWEST, Pipe.FlushPolicy.IMMEDIATE );
+        tee.start( "tee" );
+
+        awaitDetached( fastSink );
+        assertArrayEquals( data, fast.toByteArray() );
+        assertTrue( slowSink.isAttached() );
+
+        release.countDown();
+        awaitSinks( tee, 0 );
+        assertEquals( data.length, stuck.size() + slowSink.getDroppedBytes() );
+    }
+
+    @Test
+    public void sinksAreAttachedAndDetachedAtRuntime() throws Exception
+    {
+        PipedOutputStream process = new PipedOutputStream();
+        Tee tee = new Tee( new PipedInputStream( process ) ).start( "tee" );
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        Tee.Sink one = tee.attach( first );
+        process.write( 'a' );
+        process.flush();
+        awaitContent( first, "a" );
+
+        tee.attach( second );
+        process.write( 'b' );
+        process.flush();
+        awaitContent( second, "b" );
+        awaitContent( first, "ab" );
+
+        one.detach();
+        assertEquals( 1, tee.getSinkCount() );
+        process.write( 'c' );
+        process.close();
+        awaitSinks( tee, 0 );
+        assertEquals( "ab", first.toString( "UTF-8" ) );
+        assertEquals( "bc", second.toString( "UTF-8" ) );
+    }
+
+    @Test
+    public void brokenSinkIsDetached() throws Exception
+    {
+        byte[] data = new byte[100000];
+        new Random( 3 ).nextBytes( data );
+        OutputStream broken = new OutputStream()
+        {
+            @Override
+            public void write( int b ) throws IOException
+            {
+                throw new IOException( "broken" );
+            }
+        };
+        Tee tee = new Tee( new ByteArrayInputStream( data ) );
+        Tee.Sink brokenSink = tee.attach( broken, 1024, Pipe.OverflowPolicy.BLOCK, Pipe.FlushPolicy.IMMEDIATE );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tee.attach( out, 1024, Pipe.OverflowPolicy.BLOCK, Pipe.FlushPolicy.IMMEDIATE );
+        tee.start( "tee" );
+        awaitSinks( tee, 0 );
+        assertArrayEquals( data, out.toByteArray() );
+        assertNotNull( brokenSink.getFailure() );
+        assertEquals( 0, brokenSink.getBytesWritten() );
+    }
+
+    private static void awaitContent( ByteArrayOutputStream out, String expected ) throws Exception
+    {
+        for( int i = 0; i < 500 && !expected.equals( out.toString( "UTF-8" ) ); i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertEquals( expected, out.toString( "UTF-8" ) );
+    }
+
+    private static void awaitDetached( Tee.Sink sink ) throws InterruptedException
+    {
+        for( int i = 0; i < 500 && sink.isAttached(); i++ )
+        {
+            Thread.sleep( 10 );
+        }
+        assertFalse( sink.isAttached() );
+    }
+
+    private static void awaitSinks( Tee tee, int expected ) throws InterruptedException
+    {
+        for( int i = 0; i < 500; i++ )
+        {
+            if( tee.getSinkCount() == expected )
+            {
+                return;
+            }
+            Thread.sleep( 10 );
+        }
+        fail( "Expected " + expected + " sinks, but got " + tee.getSinkCount() );
+    }
+
+}
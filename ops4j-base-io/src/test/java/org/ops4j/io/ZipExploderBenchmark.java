@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ops4j.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Measures how many entries per second {@link ZipExploder} extracts from an archive with many small files. Not a
+ * unit test; run it with the test classpath, optionally passing the number of entries and their size in bytes.
+ * <pre><code>
+ *      java -cp ... org.ops4j.io.ZipExploderBenchmark 20000 1024
+ * </code></pre>
+ */
+public class ZipExploderBenchmark
+{
+
+    private static final int ROUNDS = 5;
+
+    public static void main( final String[] args )
+        throws IOException
+    {
+        int entries = args.length > 0 ? Integer.parseInt( args[ 0 ] ) : 20000;
+        int size = args.length > 1 ? Integer.parseInt( args[ 1 ] ) : 1024;
+        File dir = Files.createTempDirectory( "zipexploder-benchmark" ).toFile();
+        try
+        {
+            File zip = new File( dir, "bench.zip" );
+            writeArchive( zip, entries, size );
+            System.out.println( entries + " entries of " + size + " bytes" );
+            run( zip, dir, entries, 1 );
+            run( zip, dir, entries, Runtime.getRuntime().availableProcessors() );
+        }
+        finally
+        {
+            FileUtils.delete( dir );
+        }
+    }
+
+    private static void run( final File zip, final File dir, final int entries, final int parallelism )
+        throws IOException
+    {
+        ZipExploder exploder = new ZipExploder();
+        exploder.setParallelism( parallelism );
+        long best = Long.MAX_VALUE;
+        for( int round = 0; round < ROUNDS; round++ )
+        {
+            File dest = new File( dir, "dest" );
+            dest.mkdir();
+            long start = System.nanoTime();
+            exploder.processFile( zip, dest );
+            best = Math.min( best, System.nanoTime() - start );
+            FileUtils.delete( dest );
+        }
+        System.out.println(
+            "parallelism " + parallelism + ": " + ( entries * 1000000000L / best ) + " entries/s (best of "
+            + ROUNDS + ")"
+        );
+    }
+
+    private static void writeArchive( final File zip, final int entries, final int size )
+        throws IOException
+    {
+        Random random = new Random( 1 );
+        byte[] data = new byte[size];
+        ZipOutputStream out = new ZipOutputStream( new FileOutputStream( zip ) );
+        try
+        {
+            for( int i = 0; i < entries; i++ )
+            {
+                // half random, half compressible
+                random.nextBytes( data );
+                for( int j = size / 2; j < size; j++ )
+                {
+                    data[ j ] = (byte) ( j % 7 );
+                }
+                out.putNextEntry( new ZipEntry( "dir" + ( i % 100 ) + "/sub" + ( i % 7 ) + "/file" + i + ".txt" ) );
+                out.write( data );
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+}
@@ -1,15 +1,28 @@
 package org.ops4j.io;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.Test;
+import org.ops4j.monitors.stream.StreamMonitor;
+import org.ops4j.monitors.stream.StreamProgress;
 
 public class ZipExploderTest
 {
@@ -54,4 +67,343 @@ public class ZipExploderTest
         assertTrue(FileUtils.delete(destDir));
     }
 
+    @Test
+    public void testExplodeInParallel() throws IOException
+    {
+        File dir = Files.createTempDirectory("parallel").toFile();
+        File zip = new File(dir, "test.zip");
+        Random random = new Random(1);
+        byte[][] contents = new byte[40][];
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+        try {
+            out.putNextEntry(new ZipEntry("empty/"));
+            for (int i = 0; i < contents.length; i++) {
+                contents[i] = new byte[random.nextInt(100000)];
+                random.nextBytes(contents[i]);
+                out.putNextEntry(new ZipEntry("dir" + (i % 4) + "/sub" + (i % 3) + "/file" + i));
+                out.write(contents[i]);
+            }
+        } finally {
+            out.close();
+        }
+
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+        ZipExploder exploder = new ZipExploder(false, true);
+        exploder.setParallelism(4);
+        exploder.processFile(zip, destDir);
+
+        assertTrue(new File(destDir, "empty").isDirectory());
+        for (int i = 0; i < contents.length; i++) {
+            File file = new File(destDir, "dir" + (i % 4) + "/sub" + (i % 3) + "/file" + i);
+            assertArrayEquals(contents[i], Files.readAllBytes(file.toPath()));
+        }
+        assertTrue(FileUtils.delete(dir));
+    }
+
+    @Test
+    public void testZipSlipInParallel() throws IOException
+    {
+        File file = FileUtils.getFileFromClasspath("dirscanner-zipslip.zip");
+        File destDir = Files.createTempDirectory("zipslip").toFile();
+
+        ZipExploder exploder = new ZipExploder();
+        exploder.setParallelism(4);
+        try {
+            exploder.processFile(file, destDir);
+            fail("Failure expected on a zip slip attack");
+        } catch (IOException ex) {
+            // expected
+        }
+        // nothing is written before all entries are checked
+        assertEquals(0, destDir.list().length);
+
+        assertTrue(FileUtils.delete(destDir));
+    }
+
+    @Test
+    public void testIncrementalSkipsUnchangedEntries() throws IOException
+    {
+        File dir = Files.createTempDirectory("incremental").toFile();
+        File zip = new File(dir, "test.zip");
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+        writeZip(zip, "a", "alpha", "sub/b", "beta", "sub/c", "gamma");
+
+        CountingExploder exploder = new CountingExploder();
+        exploder.setIncremental(true);
+        exploder.setPruneStale(true);
+        exploder.processFile(zip, destDir);
+        assertEquals(3, exploder.copies);
+
+        // warm restart
+        exploder.copies = 0;
+        exploder.processFile(zip, destDir);
+        assertEquals(0, exploder.copies);
+
+        // a file changed on disk is extracted again
+        Files.write(new File(destDir, "a").toPath(), "changed".getBytes("UTF-8"));
+        exploder.processFile(zip, destDir);
+        assertEquals(1, exploder.copies);
+        assertEquals("alpha", read(new File(destDir, "a")));
+
+        // a new version of the archive, with c removed
+        File unrelated = new File(destDir, "unrelated");
+        Files.write(unrelated.toPath(), new byte[1]);
+        writeZip(zip, "a", "alpha", "sub/b", "BETA!");
+        exploder.copies = 0;
+        exploder.processFile(zip, destDir);
+        assertEquals(1, exploder.copies);
+        assertEquals("BETA!", read(new File(destDir, "sub/b")));
+        assertFalse(new File(destDir, "sub/c").exists());
+        assertTrue(unrelated.exists());
+
+        assertTrue(FileUtils.delete(dir));
+    }
+
+    @Test
+    public void testStreamHookSeesArchiveEntries() throws IOException
+    {
+        File dir = Files.createTempDirectory("hook").toFile();
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+        File zip = new File(dir, "test.zip");
+        writeZip(zip, "a", "alpha", "sub/b", "beta", "sub/c", "gamma");
+
+        StreamHookExploder exploder = new StreamHookExploder();
+        exploder.setParallelism(4);
+        exploder.processFile(zip, destDir);
+        assertEquals(3, exploder.copies);
+        assertEquals("gamma", read(new File(destDir, "sub/c")));
+
+        assertTrue(FileUtils.delete(dir));
+    }
+
+    @Test
+    public void testFileEntryNamedLikeDestination() throws IOException
+    {
+        File dir = Files.createTempDirectory("slip").toFile();
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+        File zip = new File(dir, "test.zip");
+        writeZip(zip, "x/..", "evil");
+
+        try {
+            new ZipExploder().processFile(zip, destDir);
+            fail("Failure expected on a file entry naming the destination");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertEquals(0, destDir.list().length);
+
+        assertTrue(FileUtils.delete(dir));
+    }
+
+    private static class StreamHookExploder extends ZipExploder
+    {
+
+        int copies;
+
+        @Override
+        protected synchronized void copyFileEntry(File destDir, boolean destIsDir, String destFileName, InputStream dis) throws IOException
+        {
+            copies++;
+            super.copyFileEntry(destDir, destIsDir, destFileName, dis);
+        }
+    }
+
+    private static class CountingExploder extends ZipExploder
+    {
+
+        int copies;
+
+        @Override
+        public void copyFileEntry(File destDir, ZipFile zf, ZipEntry ze) throws IOException
+        {
+            copies++;
+            super.copyFileEntry(destDir, zf, ze);
+        }
+    }
+
+    private static void writeZip(File zip, String... namesAndContents) throws IOException
+    {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+        try {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                out.putNextEntry(new ZipEntry(namesAndContents[i]));
+                out.write(namesAndContents[i + 1].getBytes("UTF-8"));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String read(File file) throws IOException
+    {
+        return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+    }
+
+    @Test
+    public void testExplodeStream() throws IOException
+    {
+        File dir = Files.createTempDirectory("stream").toFile();
+        File zip = new File(dir, "test.zip");
+        Random random = new Random(2);
+        byte[] big = new byte[3 * 1024 * 1024];
+        random.nextBytes(big);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip));
+        try {
+            out.putNextEntry(new ZipEntry("empty/"));
+            out.putNextEntry(new ZipEntry("sub/big"));
+            out.write(big);
+            out.putNextEntry(new ZipEntry("small"));
+            out.write("small".getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+        new ZipExploder().processStream(new ByteArrayInputStream(Files.readAllBytes(zip.toPath())), destDir);
+        assertTrue(new File(destDir, "empty").isDirectory());
+        assertArrayEquals(big, Files.readAllBytes(new File(destDir, "sub/big").toPath()));
+        assertEquals("small", read(new File(destDir, "small")));
+
+        File fromUrl = new File(dir, "url");
+        fromUrl.mkdir();
+        RecordingMonitor monitor = new RecordingMonitor();
+        new ZipExploder().processURL(zip.toURI().toURL(), fromUrl, monitor);
+        assertArrayEquals(big, Files.readAllBytes(new File(fromUrl, "sub/big").toPath()));
+        assertEquals(zip.length(), monitor.count);
+        assertTrue(monitor.completed);
+
+        assertTrue(FileUtils.delete(dir));
+    }
+
+    @Test
+    public void testZipSlipFromStream() throws IOException
+    {
+        File file = FileUtils.getFileFromClasspath("dirscanner-zipslip.zip");
+        File destDir = Files.createTempDirectory("zipslip").toFile();
+
+        RecordingMonitor monitor = new RecordingMonitor();
+        try {
+            new ZipExploder().processStream(new FileInputStream(file), destDir, new StreamProgress(monitor, null, file.length()));
+            fail("Failure expected on a zip slip attack");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertTrue(monitor.failed);
+
+        assertTrue(FileUtils.delete(destDir));
+    }
+
+    private static class RecordingMonitor implements StreamMonitor
+    {
+
+        volatile int count;
+        volatile boolean completed;
+        volatile boolean failed;
+
+        public void notifyUpdate(URL resource, int expected, int count)
+        {
+            this.count = count;
+        }
+
+        public void notifyCompletion(URL resource)
+        {
+            completed = true;
+        }
+
+        public void notifyError(URL resource, String message)
+        {
+            failed = true;
+        }
+    }
+
+    @Test
+    public void testFilters() throws IOException
+    {
+        File dir = Files.createTempDirectory("filters").toFile();
+        File zip = new File(dir, "test.zip");
+        writeZip(zip, "META-INF/MANIFEST.MF", "manifest", "META-INF/maven/pom.xml", "pom", "plugin.xml", "plugin",
+            "org/Foo.class", "foo", "org/foo.xml", "foo", "org/skip.xml", "skip");
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+
+        ZipExploder exploder = new ZipExploder();
+        exploder.setIncludes(ListerUtils.parseFilter("META-INF/**"), ListerUtils.parseFilter("**.xml"));
+        exploder.setExcludes(ListerUtils.parseFilter("**/skip.xml"));
+        exploder.processFile(zip, destDir);
+        assertEquals("manifest", read(new File(destDir, "META-INF/MANIFEST.MF")));
+        assertEquals("pom", read(new File(destDir, "META-INF/maven/pom.xml")));
+        assertEquals("plugin", read(new File(destDir, "plugin.xml")));
+        assertEquals("foo", read(new File(destDir, "org/foo.xml")));
+        assertFalse(new File(destDir, "org/Foo.class").exists());
+        assertFalse(new File(destDir, "org/skip.xml").exists());
+
+        // stop after the first two wanted entries, from a file and from a stream
+        for (int i = 0; i < 2; i++) {
+            assertTrue(FileUtils.delete(destDir));
+            destDir.mkdir();
+            exploder.setMaxEntries(2);
+            if (i == 0) {
+                exploder.processFile(zip, destDir);
+            } else {
+                exploder.processStream(new FileInputStream(zip), destDir);
+            }
+            assertTrue(new File(destDir, "META-INF/MANIFEST.MF").exists());
+            assertTrue(new File(destDir, "META-INF/maven/pom.xml").exists());
+            assertFalse(new File(destDir, "plugin.xml").exists());
+        }
+
+        assertTrue(FileUtils.delete(dir));
+    }
+
+    @Test
+    public void testLinkOutOfDestination() throws IOException
+    {
+        File dir = Files.createTempDirectory("links").toFile();
+        File outside = new File(dir, "outside");
+        outside.mkdir();
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+        Files.createSymbolicLink(new File(destDir, "link").toPath(), outside.toPath());
+        File zip = new File(dir, "test.zip");
+        writeZip(zip, "link/evil", "evil");
+
+        try {
+            new ZipExploder().processFile(zip, destDir);
+            fail("Failure expected on a link out of the destination");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertEquals(0, outside.list().length);
+
+        assertTrue(FileUtils.delete(dir));
+    }
+
+    @Test
+    public void testNoDirectoriesOutOfDestination() throws IOException
+    {
+        File dir = Files.createTempDirectory("links").toFile();
+        File outside = new File(dir, "outside");
+        outside.mkdir();
+        File destDir = new File(dir, "dest");
+        destDir.mkdir();
+        Files.createSymbolicLink(new File(destDir, "a").toPath(), new File("../outside").toPath());
+        File zip = new File(dir, "test.zip");
+        writeZip(zip, "a/b/c/x.txt", "evil");
+
+        try {
+            new ZipExploder().processFile(zip, destDir);
+            fail("Failure expected on a link out of the destination");
+        } catch (IOException ex) {
+            // expected
+        }
+        assertEquals(0, outside.list().length);
+
+        assertTrue(FileUtils.delete(dir));
+    }
+
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ops4j.monitors.stream;
+
+import java.net.URL;
+
+/**
+ * A {@link StreamMonitor} that can follow downloads larger than 2 GB. Sources that know about this interface
+ * call {@link #notifyUpdate(URL, long, long)} instead of {@link #notifyUpdate(URL, int, int)}.
+ *
+ * @see StreamProgress#notifyUpdate(StreamMonitor, URL, long, long)
+ */
+public interface LongStreamMonitor
+    extends StreamMonitor
+{
+
+    /**
+     * Notify the monitor of the update in the download status.
+     *
+     * @param resource the name of the remote resource being downloaded.
+     * @param expected the expected number of bytes to be downloaded, zero or negative if unknown.
+     * @param count    the number of bytes downloaded.
+     */
+    void notifyUpdate( URL resource, long expected, long count );
+}
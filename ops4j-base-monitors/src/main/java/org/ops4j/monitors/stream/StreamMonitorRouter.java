@@ -28,7 +28,7 @@ import java.util.ArrayList;
  * @version $Id$
  */
 public class StreamMonitorRouter
-    implements StreamMonitor
+    implements LongStreamMonitor
 {
 
     /**
@@ -62,6 +62,25 @@ public class StreamMonitorRouter
         }
     }
 
+    /**
+     * Notify all subscribing monitors of a updated event. Monitors that are not {@link LongStreamMonitor}s get
+     * the values capped to <code>Integer.MAX_VALUE</code>.
+     *
+     * @param resource the url of the updated resource
+     * @param expected the size in bytes of the download
+     * @param count    the progress in bytes
+     */
+    public void notifyUpdate( URL resource, long expected, long count )
+    {
+        synchronized( m_Monitors )
+        {
+            for( StreamMonitor monitor : m_Monitors )
+            {
+                StreamProgress.notifyUpdate( monitor, resource, expected, count );
+            }
+        }
+    }
+
     /**
      * Notify all subscribing monitors of a download completion event.
      *
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2026 OPS4J.
+ *
+ * Licensed  under the  Apache License,  Version 2.0  (the "License");
+ * you may not use  this file  except in  compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed  under the  License is distributed on an "AS IS" BASIS,
+ * WITHOUT  WARRANTIES OR CONDITIONS  OF ANY KIND, either  express  or
+ * implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ops4j.monitors.stream;
+
+import java.net.URL;
+
+/**
+ * Tracks the progress of a single transfer and reports it to a {@link StreamMonitor}. Updates are throttled:
+ * the monitor is only notified once at least a number of bytes have been transferred or a period of time has
+ * passed since the last notification, so that fast transfers do not spend their time in the monitor.
+ * <p>
+ * A StreamProgress is meant to be used by the thread doing the transfer and is not thread safe.
+ * </p>
+ */
+public class StreamProgress
+{
+
+    /**
+     * Default number of bytes between two notifications (1 MB).
+     */
+    public static final long DEFAULT_BYTE_INTERVAL = 1024 * 1024;
+
+    /**
+     * Default number of milliseconds between two notifications.
+     */
+    public static final long DEFAULT_TIME_INTERVAL = 500;
+
+    private final StreamMonitor m_monitor;
+    private final URL m_resource;
+    private final long m_expected;
+    private final long m_byteInterval;
+    private final long m_timeInterval;
+
+    /**
+     * Byte count at which the next notification is due.
+     */
+    private long m_nextCount;
+    /**
+     * Time, in System.nanoTime() units, at which the next notification is due.
+     */
+    private long m_nextTime;
+    /**
+     * Last count reported to the monitor.
+     */
+    private long m_reported;
+
+    /**
+     * Creates a progress tracker using the default throttling.
+     *
+     * @param monitor  the monitor to report to
+     * @param resource the resource being transferred
+     * @param expected the expected size in bytes, zero or negative if unknown
+     */
+    public StreamProgress( final StreamMonitor monitor, final URL resource, final long expected )
+    {
+        this( monitor, resource, expected, DEFAULT_BYTE_INTERVAL, DEFAULT_TIME_INTERVAL );
+    }
+
+    /**
+     * Creates a progress tracker.
+     *
+     * @param monitor      the monitor to report to
+     * @param resource     the resource being transferred
+     * @param expected     the expected size in bytes, zero or negative if unknown
+     * @param byteInterval minimum number of bytes between two notifications, zero or negative to notify on
+     *                     every update
+     * @param timeInterval number of milliseconds after which an update is reported regardless of the number of
+     *                     bytes transferred, zero or negative to only throttle by bytes
+     */
+    public StreamProgress( final StreamMonitor monitor, final URL resource, final long expected,
+                           final long byteInterval, final long timeInterval )
+    {
+        m_monitor = monitor;
+        m_resource = resource;
+        m_expected = expected;
+        m_byteInterval = Math.max( byteInterval, 0 );
+        m_timeInterval = timeInterval * 1000000;
+        m_nextCount = m_byteInterval;
+        m_reported = 0;
+        if( m_timeInterval > 0 )
+        {
+            m_nextTime = System.nanoTime() + m_timeInterval;
+        }
+    }
+
+    /**
+     * Records the number of bytes transferred so far and notifies the monitor if a notification is due.
+     *
+     * @param count the number of bytes transferred so far
+     */
+    public void update( final long count )
+    {
+        if( count >= m_nextCount || ( m_timeInterval > 0 && System.nanoTime() - m_nextTime >= 0 ) )
+        {
+            report( count );
+        }
+    }
+
+    /**
+     * Reports the final count, unless it has already been reported, and notifies the monitor of the completion.
+     *
+     * @param count the total number of bytes transferred
+     */
+    public void complete( final long count )
+    {
+        if( count != m_reported )
+        {
+            report( count );
+        }
+        m_monitor.notifyCompletion( m_resource );
+    }
+
+    /**
+     * Notifies the monitor of an error.
+     *
+     * @param message a non-localized message describing the problem in english.
+     */
+    public void error( final String message )
+    {
+        m_monitor.notifyError( m_resource, message );
+    }
+
+    /**
+     * Returns the monitor this progress is reported to.
+     *
+     * @return the monitor
+     */
+    public StreamMonitor getMonitor()
+    {
+        return m_monitor;
+    }
+
+    /**
+     * Returns the resource being transferred.
+     *
+     * @return the resource
+     */
+    public URL getResource()
+    {
+        return m_resource;
+    }
+
+    /**
+     * Returns the expected size of the transfer.
+     *
+     * @return the expected size in bytes, zero or negative if unknown
+     */
+    public long getExpected()
+    {
+        return m_expected;
+    }
+
+    private void report( final long count )
+    {
+        notifyUpdate( m_monitor, m_resource, m_expected, count );
+        m_reported = count;
+        m_nextCount = count + m_byteInterval;
+        if( m_timeInterval > 0 )
+        {
+            m_nextTime = System.nanoTime() + m_timeInterval;
+        }
+    }
+
+    /**
+     * Notifies a monitor of an update, using the 64 bit variant if the monitor is a {@link LongStreamMonitor}.
+     * Other monitors get the values capped to <code>Integer.MAX_VALUE</code>.
+     *
+     * @param monitor  the monitor to notify
+     * @param resource the resource being transferred
+     * @param expected the expected number of bytes
+     * @param count    the number of bytes transferred
+     */
+    public static void notifyUpdate( final StreamMonitor monitor, final URL resource, final long expected,
+                                     final long count )
+    {
+        if( monitor instanceof LongStreamMonitor )
+        {
+            ( (LongStreamMonitor) monitor ).notifyUpdate( resource, expected, count );
+        }
+        else
+        {
+            monitor.notifyUpdate( resource, toInt( expected ), toInt( count ) );
+        }
+    }
+
+    private static int toInt( final long value )
+    {
+        return (int) Math.min( value, Integer.MAX_VALUE );
+    }
+}
@@ -20,6 +20,7 @@ package org.ops4j.store;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import org.ops4j.io.StreamUtils;
 import org.ops4j.store.intern.TemporaryStore;
 
 /**
@@ -109,29 +110,12 @@ public class StoreFactory
      * @param data any charset data.
      * @return a hex-only charset
      * @since 1.6.0
+     * @deprecated use {@link StreamUtils#toHex(byte[])}
      */
+    @Deprecated
     public static String convertToHex( byte[] data )
     {
-        StringBuffer buf = new StringBuffer();
-        for( int i = 0; i < data.length; i++ )
-        {
-            int halfbyte = ( data[ i ] >>> 4 ) & 0x0F;
-            int two_halfs = 0;
-            do
-            {
-                if( ( 0 <= halfbyte ) && ( halfbyte <= 9 ) )
-                {
-                    buf.append( (char) ( '0' + halfbyte ) );
-                }
-                else
-                {
-                    buf.append( (char) ( 'a' + ( halfbyte - 10 ) ) );
-                }
-                halfbyte = data[ i ] & 0x0F;
-            }
-            while( two_halfs++ < 1 );
-        }
-        return buf.toString();
+        return StreamUtils.toHex( data );
     }
 
 }
@@ -31,11 +31,11 @@ import java.nio.file.Files;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.ops4j.io.FileUtils;
+import org.ops4j.io.StreamUtils;
 import org.ops4j.store.Handle;
 import org.ops4j.store.Store;
 
-import static org.ops4j.store.StoreFactory.convertToHex;
-
 /**
  * Entity store like implementation.
  * Stores incoming data (store) to disk at a temporary location.
@@ -57,7 +57,7 @@ public class TemporaryStore implements Store<InputStream>
 
         if( m_dir.exists() && flushStoreage )
         {
-            delete( m_dir );
+            FileUtils.delete( m_dir );
         }
         m_dir.mkdirs();
         m_dir.deleteOnExit();
@@ -128,16 +128,8 @@ public class TemporaryStore implements Store<InputStream>
 
         try
         {
-            MessageDigest md;
-            md = MessageDigest.getInstance( "SHA-1" );
-            byte[] bytes = new byte[1024];
-            int numRead = 0;
-            while( ( numRead = is.read( bytes ) ) >= 0 )
-
-            {
-                md.update( bytes, 0, numRead );
-                storeHere.write( bytes, 0, numRead );
-            }
+            MessageDigest md = MessageDigest.getInstance( "SHA-1" );
+            StreamUtils.copyStream( is, storeHere, false, md );
             sha1hash = md.digest();
         }
         catch( NoSuchAlgorithmException e )
@@ -152,26 +144,7 @@ public class TemporaryStore implements Store<InputStream>
         {
             throw new RuntimeException( e );
         }
-        return convertToHex( sha1hash );
-    }
-
-    private boolean delete(final File file) {
-        boolean delete = false;
-        if (file != null && file.exists()) {
-            // even if is a directory try to delete. maybe is empty or maybe is a *nix symbolic link
-            delete = file.delete();
-            if (!delete && file.isDirectory()) {
-                File[] childs = file.listFiles();
-                if (childs != null && childs.length > 0) {
-                    for (File child : childs) {
-                        delete(child);
-                    }
-                    // then try again as by now the directory can be empty
-                    delete = file.delete();
-                }
-            }
-        }
-        return delete;
+        return StreamUtils.toHex( sha1hash );
     }
 
 }